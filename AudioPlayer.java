@@ -1,17 +1,22 @@
 package com.bhojpurri;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.DataLine;
-import javax.sound.sampled.LineEvent;
 import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.sound.sampled.spi.AudioFileReader;
 
@@ -21,11 +26,28 @@ import org.slf4j.LoggerFactory;
 /**
  * Handles audio playback for TTS output.
  * Supports both WAV and MP3 formats.
+ * 
+ * Playback runs on a single dedicated thread that keeps one SourceDataLine open
+ * between utterances and streams PCM through a fixed reusable buffer. Requests are
+ * queued in order; the async methods return a future that completes when the
+ * audio has finished playing.
  */
 public class AudioPlayer {
     private static final Logger logger = LoggerFactory.getLogger(AudioPlayer.class);
     
-    private Clip currentClip;
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+    
+    // Format the line is warmed up with; ElevenLabs MP3s decode to 44.1kHz mono
+    private static final AudioFormat WARM_FORMAT = new AudioFormat(44100.0F, 16, 1, true, false);
+    
+    private final ExecutorService playbackExecutor;
+    private final byte[] pcmBuffer = new byte[STREAM_BUFFER_SIZE]; // only used on the playback thread
+    
+    private volatile SourceDataLine line;
+    private volatile boolean playing = false;
+    private volatile boolean cancelRequested = false;
+    // The playback running now, so cancelling a queued one doesn't stop it
+    private volatile CompletableFuture<Void> activePlayback;
     
     static {
         // Check if mp3spi is available
@@ -47,9 +69,27 @@ public class AudioPlayer {
         }
     }
 
+    public AudioPlayer() {
+        this.playbackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audio-playback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Open the output line up front so the first utterance doesn't pay for it
+        playbackExecutor.execute(() -> {
+            try {
+                ensureLine(WARM_FORMAT);
+                logger.info("Audio output line pre-opened: {}", WARM_FORMAT);
+            } catch (LineUnavailableException | IllegalArgumentException e) {
+                logger.warn("Could not pre-open audio output line: {}", e.getMessage());
+            }
+        });
+    }
+
     /**
      * Plays an audio file through the system speakers.
      * Supports WAV and MP3 formats (requires mp3spi library for MP3).
+     * Blocks until playback has finished.
      * 
      * @param filePath Path to the audio file to play
      * @throws RuntimeException if playback fails
@@ -59,71 +99,132 @@ public class AudioPlayer {
             logger.error("Invalid file path provided for playback");
             return;
         }
+        await(playAsync(filePath));
+    }
+
+    /**
+     * Queues an audio file for playback. Cancelling the returned future stops this file
+     * if it is playing, or skips it if it hasn't started yet.
+     * 
+     * @param filePath Path to the audio file to play
+     * @return A future completed when playback finishes (or fails)
+     */
+    public CompletableFuture<Void> playAsync(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            logger.error("Invalid file path provided for playback");
+            return CompletableFuture.completedFuture(null);
+        }
 
         File audioFile = new File(filePath);
         if (!audioFile.exists()) {
             logger.error("Audio file does not exist: {}", filePath);
-            throw new RuntimeException("Audio file not found: " + filePath);
+            return CompletableFuture.failedFuture(new RuntimeException("Audio file not found: " + filePath));
         }
 
-        logger.info("Playing audio file: {} ({} bytes)", filePath, audioFile.length());
-
+        CompletableFuture<Void> playback = newPlayback();
         try {
-            // Stop any currently playing audio
-            stopCurrentPlayback();
-
-            // Get audio input stream
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-            
-            // Get audio format
-            AudioFormat format = audioStream.getFormat();
-            logger.debug("Audio format: {}", format);
-
-            // Handle compressed formats (like MP3)
-            AudioFormat decodedFormat = getDecodedFormat(format);
-            if (decodedFormat != null) {
-                logger.debug("Decoding audio from {} to PCM", format.getEncoding());
-                audioStream = AudioSystem.getAudioInputStream(decodedFormat, audioStream);
-            }
+            playbackExecutor.execute(() -> {
+                try {
+                    if (!playback.isDone()) {
+                        activePlayback = playback;
+                        playFile(audioFile, playback);
+                        playback.complete(null);
+                    }
+                } catch (RuntimeException e) {
+                    playback.completeExceptionally(e);
+                } finally {
+                    activePlayback = null;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            playback.completeExceptionally(e);
+        }
+        return playback;
+    }
 
-            // Get a clip resource
-            DataLine.Info info = new DataLine.Info(Clip.class, audioStream.getFormat());
-            
-            if (!AudioSystem.isLineSupported(info)) {
-                logger.error("Audio line not supported for format: {}", audioStream.getFormat());
-                throw new LineUnavailableException("Audio line not supported");
-            }
+    /**
+     * Plays audio from a stream as the bytes arrive (e.g. an HTTP response body).
+     * Compressed input is decoded on the fly and written to the output line,
+     * so playback starts before the stream has been fully received.
+     * Blocks until the stream ends and the line has drained.
+     * 
+     * @param inputStream The encoded audio stream (WAV or MP3)
+     * @throws RuntimeException if playback fails
+     */
+    public void playStream(InputStream inputStream) {
+        await(playStreamAsync(inputStream));
+    }
 
-            currentClip = (Clip) AudioSystem.getLine(info);
-            currentClip.open(audioStream);
+    /**
+     * Queues an audio stream for playback.
+     * 
+     * @param inputStream The encoded audio stream (WAV or MP3)
+     * @return A future completed when playback finishes (or fails)
+     */
+    public CompletableFuture<Void> playStreamAsync(InputStream inputStream) {
+        return playStreamAsync(inputStream, () -> {});
+    }
 
-            // Add listener for completion
-            currentClip.addLineListener(event -> {
-                if (event.getType() == LineEvent.Type.STOP) {
-                    logger.debug("Audio playback completed");
+    /**
+     * Queues an audio stream for playback. Cancelling the returned future stops this stream
+     * if it is playing, or skips it if it hasn't started yet; the future completes at once,
+     * but the playback thread may still be reading the stream until it notices.
+     * 
+     * @param inputStream The encoded audio stream (WAV or MP3)
+     * @param onReleased Runs on the playback thread once it has stopped reading the stream,
+     *                   whether playback finished, failed, was cancelled or never started.
+     *                   The returned future is already complete by then.
+     * @return A future completed when playback finishes (or fails)
+     */
+    public CompletableFuture<Void> playStreamAsync(InputStream inputStream, Runnable onReleased) {
+        CompletableFuture<Void> playback = newPlayback();
+        try {
+            playbackExecutor.execute(() -> {
+                try {
+                    if (!playback.isDone()) {
+                        activePlayback = playback;
+                        playInputStream(inputStream, playback);
+                        playback.complete(null);
+                    }
+                } catch (RuntimeException e) {
+                    playback.completeExceptionally(e);
+                } finally {
+                    activePlayback = null;
+                    onReleased.run();
                 }
             });
+        } catch (RejectedExecutionException e) {
+            playback.completeExceptionally(e);
+            onReleased.run();
+        }
+        return playback;
+    }
 
-            // Start playback
-            currentClip.start();
-            logger.info("Audio playback started");
+    /**
+     * A playback future that stops the line when cancelled, but only while it is the one playing.
+     */
+    private CompletableFuture<Void> newPlayback() {
+        CompletableFuture<Void> playback = new CompletableFuture<>();
+        playback.whenComplete((ignored, error) -> {
+            if (playback.isCancelled() && activePlayback == playback) {
+                stopCurrentPlayback();
+            }
+        });
+        return playback;
+    }
 
-            // Wait for playback to complete
-            Thread.sleep(currentClip.getMicrosecondLength() / 1000);
+    private void playFile(File audioFile, CompletableFuture<Void> playback) {
+        logger.info("Playing audio file: {} ({} bytes)", audioFile.getPath(), audioFile.length());
 
-            // Cleanup
-            currentClip.drain();
-            currentClip.close();
-            audioStream.close();
-            
+        try (AudioInputStream pcmStream = toPcm(AudioSystem.getAudioInputStream(audioFile))) {
+            writeToLine(pcmStream, playback);
             logger.info("Audio playback finished successfully");
 
         } catch (UnsupportedAudioFileException e) {
             // javax.sound couldn't handle this audio file - try JLayer (pure MP3 playback)
-            logger.warn("javax.sound reported unsupported audio format for {} — trying JLayer fallback", filePath);
+            logger.warn("javax.sound reported unsupported audio format for {} — trying JLayer fallback", audioFile.getPath());
             try {
                 playWithJLayer(audioFile);
-                return;
             } catch (Exception jlEx) {
                 logger.error("JLayer fallback also failed", jlEx);
                 throw new RuntimeException("Unsupported audio format: " + e.getMessage(), e);
@@ -134,10 +235,120 @@ public class AudioPlayer {
         } catch (LineUnavailableException e) {
             logger.error("Audio line unavailable", e);
             throw new RuntimeException("Cannot access audio output: " + e.getMessage(), e);
+        }
+    }
+
+    private void playInputStream(InputStream inputStream, CompletableFuture<Void> playback) {
+        // mark/reset support lets javax.sound probe the header and lets JLayer start from byte 0
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, STREAM_BUFFER_SIZE);
+        logger.info("Playing audio stream");
+
+        try (AudioInputStream pcmStream = toPcm(AudioSystem.getAudioInputStream(buffered))) {
+            writeToLine(pcmStream, playback);
+            logger.info("Audio stream playback finished successfully");
+
+        } catch (UnsupportedAudioFileException e) {
+            logger.warn("javax.sound reported unsupported audio stream — trying JLayer fallback");
+            try {
+                playWithJLayer(buffered);
+            } catch (Exception jlEx) {
+                logger.error("JLayer fallback also failed", jlEx);
+                throw new RuntimeException("Unsupported audio format: " + e.getMessage(), e);
+            }
+        } catch (IOException e) {
+            logger.error("I/O error during audio stream playback", e);
+            throw new RuntimeException("Audio playback I/O error: " + e.getMessage(), e);
+        } catch (LineUnavailableException e) {
+            logger.error("Audio line unavailable", e);
+            throw new RuntimeException("Cannot access audio output: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wraps compressed audio (like MP3) in a decoding stream; PCM is returned as-is.
+     */
+    private AudioInputStream toPcm(AudioInputStream audioStream) {
+        AudioFormat format = audioStream.getFormat();
+        logger.debug("Audio format: {}", format);
+        AudioFormat decodedFormat = getDecodedFormat(format);
+        if (decodedFormat == null) {
+            return audioStream;
+        }
+        logger.debug("Decoding audio from {} to PCM", format.getEncoding());
+        return AudioSystem.getAudioInputStream(decodedFormat, audioStream);
+    }
+
+    /**
+     * Streams decoded PCM into the warm output line and waits for it to drain.
+     * Runs on the playback thread only.
+     * 
+     * @param playback Stops writing once this is cancelled, even if that happened before
+     *                 the line started
+     */
+    private void writeToLine(AudioInputStream pcmStream, CompletableFuture<Void> playback)
+            throws IOException, LineUnavailableException {
+        SourceDataLine out = ensureLine(pcmStream.getFormat());
+        int frameSize = Math.max(1, pcmStream.getFormat().getFrameSize());
+        int chunkSize = pcmBuffer.length - (pcmBuffer.length % frameSize);
+
+        cancelRequested = false;
+        playing = true;
+        try {
+            out.start();
+            int read;
+            // The cancelled check covers a cancel that came before cancelRequested was reset above
+            while (!cancelRequested && !playback.isCancelled()
+                    && (read = pcmStream.read(pcmBuffer, 0, chunkSize)) > 0) {
+                out.write(pcmBuffer, 0, read);
+            }
+            if (cancelRequested || playback.isCancelled()) {
+                logger.info("Audio playback cancelled");
+                out.flush();
+            } else {
+                out.drain();
+            }
+            // Stop but keep the line open for the next utterance
+            out.stop();
+        } finally {
+            playing = false;
+        }
+    }
+
+    /**
+     * Returns the open output line, reopening it only when the PCM format changes.
+     */
+    private SourceDataLine ensureLine(AudioFormat format) throws LineUnavailableException {
+        SourceDataLine current = line;
+        if (current != null && current.isOpen() && current.getFormat().matches(format)) {
+            return current;
+        }
+        if (current != null) {
+            logger.debug("Audio format changed to {}, reopening output line", format);
+            current.close();
+        }
+        SourceDataLine opened = AudioSystem.getSourceDataLine(format);
+        opened.open(format);
+        line = opened;
+        return opened;
+    }
+
+    /**
+     * Waits for a queued playback, surfacing failures the same way synchronous playback did.
+     */
+    private void await(CompletableFuture<Void> playback) {
+        try {
+            playback.get();
         } catch (InterruptedException e) {
             logger.error("Audio playback interrupted", e);
             Thread.currentThread().interrupt();
+            stopCurrentPlayback();
             throw new RuntimeException("Audio playback interrupted: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Audio playback failed: " + cause.getMessage(), cause);
         }
     }
 
@@ -148,13 +359,17 @@ public class AudioPlayer {
     private void playWithJLayer(File audioFile) throws Exception {
         logger.info("Playing MP3 with JLayer fallback: {}", audioFile.getAbsolutePath());
         try (FileInputStream fis = new FileInputStream(audioFile)) {
-            javazoom.jl.player.Player player = new javazoom.jl.player.Player(fis);
-            // JLayer playback is blocking until completion
-            player.play();
-            logger.info("JLayer playback finished successfully");
+            playWithJLayer(fis);
         }
     }
 
+    private void playWithJLayer(InputStream inputStream) throws Exception {
+        javazoom.jl.player.Player player = new javazoom.jl.player.Player(inputStream);
+        // JLayer playback is blocking until completion
+        player.play();
+        logger.info("JLayer playback finished successfully");
+    }
+
     /**
      * Gets the decoded PCM format for compressed audio formats.
      * 
@@ -183,14 +398,31 @@ public class AudioPlayer {
     }
 
     /**
-     * Stops any currently playing audio.
+     * Stops any currently playing audio. Queued playbacks still run afterwards.
      */
     public void stopCurrentPlayback() {
-        if (currentClip != null && currentClip.isRunning()) {
+        if (playing) {
             logger.info("Stopping current audio playback");
-            currentClip.stop();
-            currentClip.close();
-            currentClip = null;
+            cancelRequested = true;
+            SourceDataLine current = line;
+            if (current != null) {
+                // Unblocks a pending write() on the playback thread
+                current.stop();
+                current.flush();
+            }
+        }
+    }
+
+    /**
+     * Releases the output line and stops the playback thread.
+     */
+    public void close() {
+        stopCurrentPlayback();
+        playbackExecutor.shutdownNow();
+        SourceDataLine current = line;
+        if (current != null) {
+            current.close();
+            line = null;
         }
     }
 
@@ -200,6 +432,6 @@ public class AudioPlayer {
      * @return true if audio is playing, false otherwise
      */
     public boolean isPlaying() {
-        return currentClip != null && currentClip.isRunning();
+        return playing;
     }
 }
@@ -0,0 +1,172 @@
+package com.bhojpurri;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Prepares recordings for upload to the transcription API.
+ * Leading and trailing silence is trimmed with the {@link VoiceActivityDetector},
+ * then, because Whisper works internally at 16 kHz, the 44.1 kHz capture is resampled
+ * down, cutting the bytes sent by roughly 64% without affecting accuracy.
+ * The result is still 16-bit PCM WAV, which the Groq endpoint accepts.
+ *
+ * Configured with VAD_TRIM (default true), VAD_TRIM_PADDING_MS (default 200) and
+ * TRANSCRIBE_SAMPLE_RATE (default 16000, 0 disables resampling).
+ */
+public class AudioPreprocessor {
+    private static final Logger logger = LoggerFactory.getLogger(AudioPreprocessor.class);
+
+    private static final int DEFAULT_TARGET_RATE = 16000;
+    private static final int DEFAULT_TRIM_PADDING_MS = 200;
+
+    // Windowed-sinc low-pass: taps on each side of the centre and table resolution per input sample
+    private static final int HALF_TAPS = 24;
+    private static final int PHASES = 256;
+
+    private AudioPreprocessor() {
+    }
+
+    /**
+     * Runs all configured preprocessing stages on a recording.
+     *
+     * @param audio The captured recording
+     * @return The audio to upload (may be the same instance if nothing applies)
+     */
+    public static RecordedAudio prepareForUpload(RecordedAudio audio) {
+        RecordedAudio prepared = audio;
+        if (!"false".equalsIgnoreCase(EnvLoader.get("VAD_TRIM", "true"))) {
+            prepared = trimSilence(prepared, EnvLoader.getInt("VAD_TRIM_PADDING_MS", DEFAULT_TRIM_PADDING_MS));
+        }
+        int targetRate = EnvLoader.getInt("TRANSCRIBE_SAMPLE_RATE", DEFAULT_TARGET_RATE);
+        if (targetRate > 0) {
+            prepared = resample(prepared, targetRate);
+        }
+        return prepared;
+    }
+
+    /**
+     * Cuts leading and trailing silence, keeping {@code paddingMs} around the speech.
+     * Recordings with no detected speech are returned unchanged.
+     */
+    public static RecordedAudio trimSilence(RecordedAudio audio, int paddingMs) {
+        AudioFormat format = audio.getFormat();
+        if (!isMono16BitLittleEndian(format) || audio.getPcmLength() == 0) {
+            return audio;
+        }
+
+        VoiceActivityDetector vad = new VoiceActivityDetector(format);
+        long frames = audio.getFrameCount();
+        for (long i = 0; i < frames; i++) {
+            vad.acceptSample(audio.sampleAt(i));
+        }
+        if (!vad.hasSpeech()) {
+            logger.info("No speech detected by VAD, uploading recording untrimmed");
+            return audio;
+        }
+
+        long padding = (long) (format.getSampleRate() * paddingMs / 1000);
+        long start = Math.max(0, vad.getFirstSpeechFrame() * vad.getFrameSamples() - padding);
+        long end = Math.min(frames, (vad.getLastSpeechFrame() + 1) * vad.getFrameSamples() + padding);
+        if (start == 0 && end == frames) {
+            return audio;
+        }
+
+        RecordedAudio.Builder out = new RecordedAudio.Builder();
+        audio.copyRange(start * 2, end * 2, out);
+        RecordedAudio trimmed = out.buildDerived(format, audio);
+        logger.info("VAD trimmed {} ms of silence ({} -> {} bytes)",
+            (frames - (end - start)) * 1000 / (long) format.getSampleRate(),
+            audio.getWavLength(), trimmed.getWavLength());
+        return trimmed;
+    }
+
+    /**
+     * Resamples 16-bit mono PCM to a lower sample rate with an anti-aliasing filter.
+     * Other formats, or rates that are not lower, are returned unchanged.
+     */
+    public static RecordedAudio resample(RecordedAudio audio, int targetRate) {
+        AudioFormat format = audio.getFormat();
+        float sourceRate = format.getSampleRate();
+        if (!isMono16BitLittleEndian(format) || targetRate >= sourceRate || audio.getPcmLength() == 0) {
+            return audio;
+        }
+
+        long start = System.nanoTime();
+        double ratio = sourceRate / targetRate;
+        // Cut off a little below the new Nyquist frequency (in cycles per input sample)
+        double cutoff = 0.5 / ratio * 0.92;
+        float[][] kernels = buildKernels(cutoff);
+
+        long inputFrames = audio.getFrameCount();
+        long outputFrames = (long) Math.floor(inputFrames / ratio);
+        RecordedAudio.Builder out = new RecordedAudio.Builder();
+        byte[] buffer = new byte[4096];
+        int bufferPos = 0;
+
+        for (long n = 0; n < outputFrames; n++) {
+            double position = n * ratio;
+            long centre = (long) Math.floor(position);
+            float[] kernel = kernels[(int) ((position - centre) * PHASES)];
+
+            double sum = 0;
+            for (int tap = 0; tap < kernel.length; tap++) {
+                long index = centre - HALF_TAPS + 1 + tap;
+                if (index >= 0 && index < inputFrames) {
+                    sum += audio.sampleAt(index) * kernel[tap];
+                }
+            }
+
+            int sample = (int) Math.round(sum);
+            sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+            buffer[bufferPos++] = (byte) sample;
+            buffer[bufferPos++] = (byte) (sample >> 8);
+            if (bufferPos == buffer.length) {
+                out.write(buffer, 0, bufferPos);
+                bufferPos = 0;
+            }
+        }
+        out.write(buffer, 0, bufferPos);
+
+        AudioFormat targetFormat = new AudioFormat(targetRate, 16, 1, true, false);
+        RecordedAudio resampled = out.buildDerived(targetFormat, audio);
+        logger.info("Resampled {} Hz -> {} Hz: {} -> {} bytes in {} ms",
+            (int) sourceRate, targetRate, audio.getWavLength(), resampled.getWavLength(),
+            (System.nanoTime() - start) / 1_000_000);
+        return resampled;
+    }
+
+    /**
+     * Precomputes Hann-windowed sinc kernels for each fractional input position,
+     * so the inner loop is a plain multiply-add.
+     */
+    private static float[][] buildKernels(double cutoff) {
+        float[][] kernels = new float[PHASES][2 * HALF_TAPS];
+        for (int phase = 0; phase < PHASES; phase++) {
+            double fraction = phase / (double) PHASES;
+            double gain = 0;
+            for (int tap = 0; tap < 2 * HALF_TAPS; tap++) {
+                // Distance from the output position to this input sample
+                double x = (tap - HALF_TAPS + 1) - fraction;
+                double sinc = x == 0 ? 1.0 : Math.sin(2 * Math.PI * cutoff * x) / (2 * Math.PI * cutoff * x);
+                double window = 0.5 * (1 + Math.cos(Math.PI * x / HALF_TAPS));
+                double value = Math.abs(x) >= HALF_TAPS ? 0 : 2 * cutoff * sinc * window;
+                kernels[phase][tap] = (float) value;
+                gain += value;
+            }
+            // Normalize to unity DC gain so levels are preserved
+            for (int tap = 0; tap < 2 * HALF_TAPS; tap++) {
+                kernels[phase][tap] /= gain;
+            }
+        }
+        return kernels;
+    }
+
+    private static boolean isMono16BitLittleEndian(AudioFormat format) {
+        return format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED)
+            && format.getSampleSizeInBits() == 16
+            && format.getChannels() == 1
+            && !format.isBigEndian();
+    }
+}
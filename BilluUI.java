@@ -3,7 +3,11 @@ package com.bhojpurri;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +29,14 @@ public class BilluUI {
     private DatabaseManager dbManager;
     private CatAnimator catAnimator; // Animated cat sprite handler
     private volatile boolean isProcessing = false;
+    private final boolean handsFree; // VAD starts and stops recordings, no SPACE needed
+    private static final long DEFAULT_HANDS_FREE_SILENCE_MS = 800;
+    private final Set<String> extraLanguages; // Shown alongside the selected language, e.g. EXTRA_LANGUAGES=hi,ur
+    private volatile CompletableFuture<?> currentStage; // Running pipeline stage, cancelled by ESC
+    private final PipelineScheduler scheduler = new PipelineScheduler(); // Bounded executors per stage
+    private final long transcribeTimeoutMs = EnvLoader.getLong("PIPELINE_TRANSCRIBE_TIMEOUT_MS", 30000);
+    private final long translateTimeoutMs = EnvLoader.getLong("PIPELINE_TRANSLATE_TIMEOUT_MS", 10000);
+    private final long speakTimeoutMs = EnvLoader.getLong("PIPELINE_SPEAK_TIMEOUT_MS", 120000); // includes playback
     
     // Language options for translation
     private static class LanguageOption {
@@ -46,9 +58,38 @@ public class BilluUI {
 
     public BilluUI() {
         recorder = new SpeechRecorder();
+        handsFree = "true".equalsIgnoreCase(EnvLoader.get("HANDS_FREE", "false"));
+        long autoStopMs = EnvLoader.getLong("VAD_AUTO_STOP_MS", handsFree ? DEFAULT_HANDS_FREE_SILENCE_MS : 0);
+        if (handsFree || autoStopMs > 0) {
+            recorder.setVoiceActivityCallbacks(autoStopMs,
+                handsFree ? () -> SwingUtilities.invokeLater(this::handleSpeechDetected) : null,
+                () -> SwingUtilities.invokeLater(this::handleSilenceDetected));
+        }
+        // Hands-free mode needs the mic open all the time to hear speech start
+        if (handsFree || "true".equalsIgnoreCase(EnvLoader.get("RECORDER_ALWAYS_ARMED", "false"))) {
+            try {
+                recorder.arm(); // Keep the mic open so no speech is clipped on key press
+            } catch (RuntimeException e) {
+                logger.warn("Could not arm microphone, recording on demand: {}", e.getMessage());
+            }
+        }
+        extraLanguages = new LinkedHashSet<>();
+        for (String code : EnvLoader.get("EXTRA_LANGUAGES", "").split(",")) {
+            if (!code.trim().isEmpty()) {
+                extraLanguages.add(code.trim());
+            }
+        }
         translator = new Translator();
         ttsManager = new TTSManager();
         dbManager = new DatabaseManager();
+        translator.setUsageStats(dbManager.getUsageStats());
+        ttsManager.setUsageStats(dbManager.getUsageStats());
+        
+        // Flush queued saves and usage counters when the window closes the JVM
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            dbManager.close();
+        }, "billu-shutdown"));
     }
 
     public void createAndShowGUI() {
@@ -220,7 +261,9 @@ public class BilluUI {
         // Bottom panel - Instructions
         JPanel instructionPanel = new JPanel();
         instructionPanel.setBackground(new Color(240, 248, 255));
-        JLabel instructionLabel = new JLabel("Hold SPACE to record | Release to translate and speak");
+        JLabel instructionLabel = new JLabel(handsFree
+            ? "Hands-free: just speak, Billu translates when you pause"
+            : "Hold SPACE to record | Release to translate and speak | ESC to cancel");
         instructionLabel.setFont(new Font("SansSerif", Font.ITALIC, 13));
         instructionLabel.setForeground(Color.GRAY);
         instructionPanel.add(instructionLabel);
@@ -240,6 +283,10 @@ public class BilluUI {
         KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(new KeyEventDispatcher() {
             @Override
             public boolean dispatchKeyEvent(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE && e.getID() == KeyEvent.KEY_PRESSED) {
+                    cancelProcessing();
+                    return false;
+                }
                 if (e.getKeyCode() == KeyEvent.VK_SPACE) {
                     if (e.getID() == KeyEvent.KEY_PRESSED && !isProcessing) {
                         handleSpacePressed();
@@ -269,6 +316,27 @@ public class BilluUI {
         recorder.startRecording();
     }
 
+    /**
+     * Hands-free mode: the VAD heard speech while idle, so start recording.
+     * The armed recorder's pre-roll covers the onset that triggered this.
+     */
+    private void handleSpeechDetected() {
+        if (!isProcessing && !recorder.isRecording()) {
+            logger.info("Speech detected - starting hands-free recording");
+            handleSpacePressed();
+        }
+    }
+
+    /**
+     * The VAD heard enough trailing silence; finish the recording as if SPACE was released.
+     */
+    private void handleSilenceDetected() {
+        if (!isProcessing && recorder.isRecording()) {
+            logger.info("Silence detected - stopping recording");
+            handleSpaceReleased();
+        }
+    }
+
     private void handleSpaceReleased() {
         logger.info("Space key released - stopping recording");
         isProcessing = true;
@@ -279,114 +347,175 @@ public class BilluUI {
             catAnimator.setState(CatAnimator.AnimationState.THINKING);
         }
         
-        String filePath = recorder.stopRecording();
-        
-        // Process recording asynchronously
-        CompletableFuture.runAsync(() -> processRecording(filePath))
-            .exceptionally(ex -> {
-                logger.error("Error during processing", ex);
-                SwingUtilities.invokeLater(() -> {
-                    updateUI("⚠️ Error occurred", "Error: " + ex.getMessage());
-                    isProcessing = false;
-                });
-                return null;
-            });
+        RecordedAudio audio = recorder.stopRecordingToMemory();
+        if (audio == null) {
+            updateUI("⚠️ Nothing was recorded", "Recording was empty. Please try again.");
+            if (catAnimator != null) {
+                catAnimator.setState(CatAnimator.AnimationState.IDLE);
+            }
+            isProcessing = false;
+            return;
+        }
+        
+        // Process recording asynchronously - no thread blocks while the APIs work
+        processRecording(audio);
     }
 
-    private void processRecording(String filePath) {
-        String englishText = null;
-        String translatedText = null;
-        String ttsPath = null;
-        long audioSize = 0;
-        
+    /**
+     * ESC while processing: cancels the running stage (HTTP request or playback).
+     */
+    private void cancelProcessing() {
+        CompletableFuture<?> stage = currentStage;
+        if (isProcessing && stage != null) {
+            logger.info("Cancelling current utterance");
+            stage.cancel(true);
+        }
+    }
+
+    /**
+     * Remembers the running stage so it can be cancelled.
+     */
+    private <T> CompletableFuture<T> stage(CompletableFuture<T> future) {
+        currentStage = future;
+        return future;
+    }
+
+    /**
+     * Runs transcribe -> translate -> (save + speak) as a chain of stages on the
+     * {@link PipelineScheduler}'s bounded executors, each with its own timeout (PIPELINE_TRANSCRIBE_TIMEOUT_MS, PIPELINE_TRANSLATE_TIMEOUT_MS,
+     * PIPELINE_SPEAK_TIMEOUT_MS).
+     */
+    private CompletableFuture<Void> processRecording(RecordedAudio audio) {
         // Get selected language
         LanguageOption selectedLang = (LanguageOption) languageDropdown.getSelectedItem();
         String targetLangCode = selectedLang != null ? selectedLang.code : "bho";
         String targetLangName = selectedLang != null ? selectedLang.name : "Bhojpuri";
         
-        try {
-            logger.info("Processing recording from: {}", filePath);
-            
-            // Get audio file size
-            java.io.File audioFile = new java.io.File(filePath);
-            audioSize = audioFile.length();
-            
-            // Step 1: Transcribe to English
-            logger.info("Transcribing audio to English text...");
-            final String transcribedEnglish = translator.transcribeToEnglish(filePath);
-            englishText = transcribedEnglish;
-            logger.info("Transcribed text: {}", englishText);
-            
-            SwingUtilities.invokeLater(() -> 
-                appendOutput("English: " + transcribedEnglish)
-            );
-
-            // Step 2: Translate to selected language
-            logger.info("Translating English to {}...", targetLangName);
-            final String translated = translator.translateTo(englishText, targetLangCode);
-            translatedText = translated;
-            logger.info("Translated text: {}", translatedText);
-            
-            final String langName = targetLangName; // For lambda capture
-            SwingUtilities.invokeLater(() -> {
-                appendOutput(langName + ": " + translated);
-                updateUI("🔊 Speaking...", null);
+        // The WAV archive is written in the background; the DB only needs its path
+        String filePath = audio.getArchiveFile().getAbsolutePath();
+        long audioSize = audio.getWavLength();
+        logger.info("Processing recording (archived to: {})", filePath);
+        
+        // Step 1: Downsample for upload, then transcribe to English straight from memory
+        CompletableFuture<Void> pipeline = stage(scheduler.submitAsync(PipelineScheduler.Stage.TRANSCRIBE, () -> {
+                RecordedAudio uploadAudio = AudioPreprocessor.prepareForUpload(audio);
+                logger.info("Transcribing audio to English text...");
+                return Futures.withTimeout(translator.transcribeToEnglishAsync(uploadAudio),
+                    transcribeTimeoutMs, "Transcription");
+            }))
+            .thenCompose(englishText -> {
+                logger.info("Transcribed text: {}", englishText);
+                SwingUtilities.invokeLater(() -> appendOutput("English: " + englishText));
                 
-                // Change cat animation to SPEAKING (mouth movement!)
-                if (catAnimator != null) {
-                    catAnimator.setState(CatAnimator.AnimationState.SPEAKING);
-                }
+                // Step 2: Translate to the selected language, plus any extra display languages
+                // concurrently; each extra language is shown as soon as it arrives
+                logger.info("Translating English to {}...", targetLangName);
+                Set<String> langCodes = new LinkedHashSet<>();
+                langCodes.add(targetLangCode);
+                langCodes.addAll(extraLanguages);
+                return stage(scheduler.submitAsync(PipelineScheduler.Stage.TRANSLATE, () -> {
+                        Map<String, CompletableFuture<String>> translations = translator.translateToMany(englishText, langCodes);
+                        translations.forEach((code, future) -> {
+                            if (!code.equals(targetLangCode)) {
+                                future.thenAccept(text -> SwingUtilities.invokeLater(() ->
+                                    appendOutput(languageName(code) + ": " + text)));
+                            }
+                        });
+                        // A cancelled or timed-out utterance stops the extra languages' requests too
+                        CompletableFuture<String> primary = translations.get(targetLangCode);
+                        primary.whenComplete((text, error) -> {
+                            if (primary.isCancelled()) {
+                                translations.values().forEach(future -> future.cancel(true));
+                            }
+                        });
+                        return Futures.withTimeout(primary, translateTimeoutMs, "Translation");
+                    }))
+                    .thenCompose(translatedText -> {
+                        logger.info("Translated text: {}", translatedText);
+                        SwingUtilities.invokeLater(() -> {
+                            appendOutput(targetLangName + ": " + translatedText);
+                            updateUI("🔊 Speaking...", null);
+                            
+                            // Change cat animation to SPEAKING (mouth movement!)
+                            if (catAnimator != null) {
+                                catAnimator.setState(CatAnimator.AnimationState.SPEAKING);
+                            }
+                        });
+                        
+                        // Step 3: Queue the database save right away (journaled, then batch-written in
+                        // the background) while speech is synthesized and played; the TTS path is attached later
+                        CompletableFuture<Integer> saved = dbManager.saveTranslationAsync(filePath, audioSize,
+                            englishText, translatedText, targetLangCode, null);
+                        saved.whenComplete((dbId, error) -> {
+                            if (error != null) {
+                                logger.error("Failed to save to database", error);
+                            } else if (dbId > 0) {
+                                logger.info("💾 Translation saved to database with ID: {}", dbId);
+                                SwingUtilities.invokeLater(() -> 
+                                    appendOutput("💾 Saved to database (ID: " + dbId + ")")
+                                );
+                            }
+                        });
+                        
+                        // Step 4: Convert to speech and play
+                        logger.info("Converting {} text to speech...", targetLangName);
+                        CompletableFuture<String> speech = stage(scheduler.submitAsync(PipelineScheduler.Stage.SYNTHESIZE, () ->
+                            Futures.withTimeout(ttsManager.speakAsync(translatedText, targetLangCode),
+                                speakTimeoutMs, "Speech")));
+                        
+                        // Attach the TTS file to the row once both exist - the UI doesn't wait for this
+                        speech.thenAcceptBoth(saved, (ttsPath, dbId) -> {
+                            if (ttsPath != null && dbId > 0) {
+                                scheduler.submit(PipelineScheduler.Stage.PERSIST,
+                                    () -> dbManager.updateTtsPath(dbId, ttsPath));
+                            }
+                        });
+                        
+                        return speech.thenAccept(ttsPath -> logger.info("Speech playback completed"));
+                    });
             });
 
-            // Step 3: Convert to speech and play
-            logger.info("Converting {} text to speech...", targetLangName);
-            ttsPath = ttsManager.speak(translatedText, targetLangCode);
-            logger.info("Speech playback completed");
-
-            // Step 4: Save to database
-            final String finalEnglish = englishText;
-            final String finalTranslated = translatedText;
-            final String finalTtsPath = ttsPath;
-            final long finalAudioSize = audioSize;
-            final String finalLangCode = targetLangCode;
-            
-            int dbId = dbManager.saveTranslation(filePath, finalAudioSize, finalEnglish, 
-                                                  finalTranslated, finalLangCode, finalTtsPath);
-            
-            if (dbId > 0) {
-                logger.info("💾 Translation saved to database with ID: {}", dbId);
-                SwingUtilities.invokeLater(() -> 
-                    appendOutput("💾 Saved to database (ID: " + dbId + ")")
-                );
-            }
-
-            // Reset UI
-            SwingUtilities.invokeLater(() -> {
+        pipeline.whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            logger.info("Pipeline stats:\n{}\n{}", scheduler.getStats(), dbManager.getPoolStats());
+            logger.info("TTS hedging: {}", ttsManager.getHedgeStats());
+            logger.info("Provider health:\n{}\n{}", translator.getProviderStats(), ttsManager.getProviderStats());
+            if (error == null) {
+                // Reset UI
                 updateUI("✅ Done! Press SPACE to talk again...", null);
-                
-                // Change cat animation back to IDLE
-                if (catAnimator != null) {
-                    catAnimator.setState(CatAnimator.AnimationState.IDLE);
-                }
-                
                 appendOutput("---");
-                isProcessing = false;
-            });
-
-        } catch (Exception ex) {
-            logger.error("Error processing recording", ex);
-            SwingUtilities.invokeLater(() -> {
-                updateUI("⚠️ Error: " + ex.getMessage(), 
-                    "Failed to process. Please try again.");
-                
-                // Reset cat to IDLE on error
-                if (catAnimator != null) {
-                    catAnimator.setState(CatAnimator.AnimationState.IDLE);
+            } else {
+                Throwable cause = Futures.unwrap(error);
+                if (cause instanceof CancellationException) {
+                    logger.info("Processing cancelled");
+                    updateUI("🛑 Cancelled. Press SPACE to talk again...", null);
+                } else {
+                    logger.error("Error processing recording", cause);
+                    updateUI("⚠️ Error: " + cause.getMessage(), 
+                        "Failed to process. Please try again.");
                 }
-                
-                isProcessing = false;
-            });
+            }
+            
+            // Change cat animation back to IDLE
+            if (catAnimator != null) {
+                catAnimator.setState(CatAnimator.AnimationState.IDLE);
+            }
+            currentStage = null;
+            isProcessing = false;
+        }));
+        return pipeline;
+    }
+
+    /**
+     * Display name for a language code from the dropdown, or the code itself.
+     */
+    private String languageName(String code) {
+        for (int i = 0; i < languageDropdown.getItemCount(); i++) {
+            LanguageOption option = languageDropdown.getItemAt(i);
+            if (option.code.equals(code)) {
+                return option.name;
+            }
         }
+        return code;
     }
 
     private void updateUI(String status, String output) {
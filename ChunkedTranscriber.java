@@ -0,0 +1,302 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transcribes long recordings as several shorter segments in parallel.
+ * The audio is cut at pauses found by the {@link VoiceActivityDetector}; if a stretch of
+ * speech has no usable pause, it is cut hard and the next segment overlaps the previous one
+ * so no word is lost at the seam. Segments are uploaded concurrently and the texts are
+ * stitched back in order, dropping words repeated across a boundary. Latency then follows
+ * the longest segment instead of the whole recording.
+ *
+ * Configured with TRANSCRIBE_CHUNK_SECONDS (default 12, 0 disables chunking),
+ * TRANSCRIBE_CHUNK_OVERLAP_MS (default 1000) and TRANSCRIBE_MAX_PARALLEL (default 4).
+ */
+public class ChunkedTranscriber {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedTranscriber.class);
+
+    private static final int DEFAULT_CHUNK_SECONDS = 12;
+    private static final int DEFAULT_OVERLAP_MS = 1000;
+    private static final int DEFAULT_MAX_PARALLEL = 4;
+
+    private static final int MIN_PAUSE_MS = 200;        // shorter gaps are usually within a word
+    private static final int MAX_BOUNDARY_WORDS = 6;    // how far to look for repeated words at a seam
+
+    private final Function<RecordedAudio, CompletableFuture<String>> segmentTranscriber;
+    private final int chunkMs;
+    private final int overlapMs;
+    private final int maxParallel;
+
+    /**
+     * A piece of a longer recording.
+     */
+    static class Segment {
+        final RecordedAudio audio;
+        final boolean overlapsPrevious;
+
+        Segment(RecordedAudio audio, boolean overlapsPrevious) {
+            this.audio = audio;
+            this.overlapsPrevious = overlapsPrevious;
+        }
+    }
+
+    /**
+     * @param segmentTranscriber Uploads one segment and completes with its text
+     */
+    public ChunkedTranscriber(Function<RecordedAudio, CompletableFuture<String>> segmentTranscriber) {
+        this.segmentTranscriber = segmentTranscriber;
+        this.chunkMs = EnvLoader.getInt("TRANSCRIBE_CHUNK_SECONDS", DEFAULT_CHUNK_SECONDS) * 1000;
+        this.overlapMs = Math.max(0, EnvLoader.getInt("TRANSCRIBE_CHUNK_OVERLAP_MS", DEFAULT_OVERLAP_MS));
+        this.maxParallel = Math.max(1, EnvLoader.getInt("TRANSCRIBE_MAX_PARALLEL", DEFAULT_MAX_PARALLEL));
+    }
+
+    /**
+     * @return true if the recording is long enough to be worth splitting
+     */
+    public boolean shouldChunk(RecordedAudio audio) {
+        return chunkMs > 0 && audio.getDurationSeconds() * 1000 > chunkMs;
+    }
+
+    /**
+     * Splits, transcribes concurrently and stitches the result.
+     *
+     * @param audio The recording to transcribe
+     * @return The combined transcription
+     * @throws IOException If any segment fails
+     */
+    public String transcribe(RecordedAudio audio) throws IOException {
+        try {
+            return transcribeAsync(audio).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Transcription interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = Futures.unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Segment transcription failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #transcribe(RecordedAudio)}. At most TRANSCRIBE_MAX_PARALLEL
+     * segments are in flight; each finished upload starts the next queued one. The first
+     * failing segment cancels the rest, and cancelling the returned future cancels them all.
+     *
+     * @param audio The recording to transcribe
+     * @return A future completed with the combined transcription
+     */
+    public CompletableFuture<String> transcribeAsync(RecordedAudio audio) {
+        List<Segment> segments = split(audio, chunkMs, overlapMs);
+        logger.info("Transcribing {} s of audio as {} segments ({} in parallel)",
+            String.format(Locale.ROOT, "%.1f", audio.getDurationSeconds()), segments.size(), maxParallel);
+        System.out.println("🎤 Transcribing " + segments.size() + " segments in parallel...");
+
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> results = new ArrayList<>(segments.size());
+        Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        for (Segment segment : segments) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            results.add(result);
+            pending.add(() -> {
+                if (result.isDone()) {
+                    // Cancelled before it started
+                    startNext(pending);
+                    return;
+                }
+                CompletableFuture<String> upload;
+                try {
+                    upload = segmentTranscriber.apply(segment.audio);
+                } catch (RuntimeException e) {
+                    upload = CompletableFuture.failedFuture(e);
+                }
+                Futures.propagateCancel(result, upload);
+                upload.whenComplete((text, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(Futures.unwrap(error));
+                    } else {
+                        result.complete(text);
+                    }
+                    startNext(pending);
+                });
+            });
+        }
+
+        CompletableFuture<String> stitched = new CompletableFuture<>();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<String> texts = new ArrayList<>(results.size());
+            for (CompletableFuture<String> result : results) {
+                texts.add(result.join());
+            }
+            String text = stitch(segments, texts);
+            logger.info("Chunked transcription finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+            System.out.println("✅ Transcribed: " + text);
+            stitched.complete(text);
+        });
+
+        for (CompletableFuture<String> result : results) {
+            // Fail fast: one broken segment makes the whole transcription useless
+            result.whenComplete((text, error) -> {
+                if (error != null) {
+                    stitched.completeExceptionally(error);
+                    results.forEach(other -> other.cancel(true));
+                }
+            });
+            Futures.propagateCancel(stitched, result);
+        }
+
+        for (int i = 0; i < Math.min(maxParallel, segments.size()); i++) {
+            startNext(pending);
+        }
+        return stitched;
+    }
+
+    private static void startNext(Queue<Runnable> pending) {
+        Runnable next = pending.poll();
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    /**
+     * Cuts a recording into segments of at most {@code maxSegmentMs}, preferring the
+     * middle of the longest pause in the second half of each window.
+     */
+    static List<Segment> split(RecordedAudio audio, int maxSegmentMs, int overlapMs) {
+        AudioFormat format = audio.getFormat();
+        List<Segment> segments = new ArrayList<>();
+        long totalFrames = audio.getFrameCount();
+        long maxFrames = (long) (format.getSampleRate() * maxSegmentMs / 1000);
+        if (maxFrames <= 0 || totalFrames <= maxFrames || format.getSampleSizeInBits() != 16
+                || format.getChannels() != 1 || format.isBigEndian()) {
+            segments.add(new Segment(audio, false));
+            return segments;
+        }
+
+        // One speech/non-speech flag per VAD frame
+        VoiceActivityDetector vad = new VoiceActivityDetector(format);
+        int frameSamples = vad.getFrameSamples();
+        boolean[] speech = new boolean[(int) (totalFrames / frameSamples)];
+        for (long i = 0; i < speech.length * (long) frameSamples; i++) {
+            vad.acceptSample(audio.sampleAt(i));
+            if ((i + 1) % frameSamples == 0) {
+                speech[(int) (i / frameSamples)] = vad.isSpeaking();
+            }
+        }
+
+        int windowFrames = (int) (maxFrames / frameSamples);
+        int minPause = MIN_PAUSE_MS / VoiceActivityDetector.FRAME_MS;
+        long overlapSamples = (long) (format.getSampleRate() * overlapMs / 1000);
+        long start = 0;
+        boolean overlapped = false;
+
+        while (totalFrames - start > maxFrames) {
+            int from = (int) (start / frameSamples) + windowFrames / 2;
+            int to = Math.min(speech.length, (int) (start / frameSamples) + windowFrames);
+
+            // Longest run of non-speech frames inside the window
+            int bestStart = -1, bestLength = 0, runStart = -1;
+            for (int f = from; f <= to; f++) {
+                boolean silent = f < to && !speech[f];
+                if (silent && runStart < 0) {
+                    runStart = f;
+                } else if (!silent && runStart >= 0) {
+                    if (f - runStart >= bestLength) {
+                        bestStart = runStart;
+                        bestLength = f - runStart;
+                    }
+                    runStart = -1;
+                }
+            }
+
+            long cut;
+            long nextStart;
+            boolean nextOverlaps;
+            if (bestLength >= minPause) {
+                cut = (bestStart + bestLength / 2L) * frameSamples;
+                nextStart = cut;
+                nextOverlaps = false;
+            } else {
+                cut = start + maxFrames;
+                nextStart = Math.max(start + 1, cut - overlapSamples);
+                nextOverlaps = overlapSamples > 0;
+            }
+
+            segments.add(new Segment(slice(audio, start, cut), overlapped));
+            start = nextStart;
+            overlapped = nextOverlaps;
+        }
+        segments.add(new Segment(slice(audio, start, totalFrames), overlapped));
+        return segments;
+    }
+
+    private static RecordedAudio slice(RecordedAudio audio, long fromFrame, long toFrame) {
+        RecordedAudio.Builder out = new RecordedAudio.Builder();
+        audio.copyRange(fromFrame * 2, toFrame * 2, out);
+        return out.buildDerived(audio.getFormat(), audio);
+    }
+
+    /**
+     * Joins segment texts in order. Where a segment starts with words the previous one
+     * ended with, the repeat is dropped; overlapped seams also tolerate one clipped word.
+     */
+    static String stitch(List<Segment> segments, List<String> texts) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i) == null ? "" : texts.get(i).trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            List<String> next = Arrays.asList(text.split("\\s+"));
+            if (!words.isEmpty()) {
+                boolean overlapped = segments.get(i).overlapsPrevious;
+                next = next.subList(repeatedPrefixLength(words, next, overlapped), next.size());
+            }
+            words.addAll(next);
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * Number of leading words of {@code next} that repeat the end of {@code previous}.
+     */
+    private static int repeatedPrefixLength(List<String> previous, List<String> next, boolean overlapped) {
+        // A pause seam needs two matching words before we call it a repeat ("very very" is real speech)
+        int minMatch = overlapped ? 1 : 2;
+        int maxSkip = overlapped ? 1 : 0;
+        for (int skip = 0; skip <= maxSkip; skip++) {
+            int longest = Math.min(MAX_BOUNDARY_WORDS, Math.min(previous.size(), next.size() - skip));
+            for (int k = longest; k >= minMatch; k--) {
+                boolean match = true;
+                for (int j = 0; j < k && match; j++) {
+                    match = normalizeWord(previous.get(previous.size() - k + j))
+                        .equals(normalizeWord(next.get(skip + j)));
+                }
+                if (match) {
+                    return skip + k;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static String normalizeWord(String word) {
+        return word.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+    }
+}
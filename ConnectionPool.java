@@ -0,0 +1,325 @@
+package com.bhojpurri;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small JDBC connection pool so concurrent database work runs on separate connections
+ * instead of sharing one socket.
+ *
+ * Borrowed connections are returned to the pool by {@code close()}, so callers use them in
+ * try-with-resources exactly like a DriverManager connection. A connection that sat idle
+ * for more than DB_POOL_VALIDATE_AFTER_MS (default 30000) is checked with
+ * {@link Connection#isValid} before it is handed out, and connections idle for longer than
+ * DB_POOL_IDLE_TIMEOUT_MS (default 300000) are closed in the background, keeping
+ * DB_POOL_MIN_IDLE (default 1). At most DB_POOL_SIZE (default 4) connections are open;
+ * callers wait up to DB_POOL_MAX_WAIT_MS (default 5000) for one to come back.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * A physical connection and when it was last returned.
+     */
+    private static class PooledConnection {
+        final Connection connection;
+        long lastUsed = System.currentTimeMillis();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final List<String> initStatements;
+    private final int maxSize;
+    private final int minIdle;
+    private final long maxWaitMs;
+    private final long validateAfterMs;
+    private final long idleTimeoutMs;
+    private final ScheduledExecutorService evictor;
+
+    // All state below is guarded by idle
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int openCount = 0;
+    private boolean closed = false;
+    private long borrowed = 0;
+    private long created = 0;
+    private long evicted = 0;
+    private long invalid = 0;
+
+    /**
+     * @param initStatements Session setup run once on every new connection, e.g. SET NAMES
+     */
+    public ConnectionPool(String url, String user, String password, List<String> initStatements) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.initStatements = new ArrayList<>(initStatements);
+        this.maxSize = Math.max(1, EnvLoader.getInt("DB_POOL_SIZE", 4));
+        this.minIdle = Math.max(0, Math.min(maxSize, EnvLoader.getInt("DB_POOL_MIN_IDLE", 1)));
+        this.maxWaitMs = EnvLoader.getLong("DB_POOL_MAX_WAIT_MS", 5000);
+        this.validateAfterMs = EnvLoader.getLong("DB_POOL_VALIDATE_AFTER_MS", 30000);
+        this.idleTimeoutMs = EnvLoader.getLong("DB_POOL_IDLE_TIMEOUT_MS", 300000);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection. Closing it returns it to the pool.
+     *
+     * @throws SQLException if the pool is closed, no connection frees up within
+     *         DB_POOL_MAX_WAIT_MS, or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (true) {
+            PooledConnection candidate = null;
+            boolean open = false;
+            synchronized (idle) {
+                while (true) {
+                    if (closed) {
+                        throw new SQLNonTransientConnectionException("Connection pool is closed", "08003");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (openCount < maxSize) {
+                        openCount++;
+                        open = true;
+                        break;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new SQLTransientConnectionException("Timed out after " + maxWaitMs
+                            + " ms waiting for a database connection (" + maxSize + " in use)", "08001");
+                    }
+                    try {
+                        idle.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", "08001", e);
+                    }
+                }
+                borrowed++;
+            }
+
+            if (open) {
+                return wrap(openConnection());
+            }
+            if (isUsable(candidate)) {
+                return wrap(candidate);
+            }
+            discard(candidate);
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : initStatements) {
+                    stmt.execute(sql);
+                }
+            } catch (SQLException e) {
+                closeQuietly(connection);
+                throw e;
+            }
+            synchronized (idle) {
+                created++;
+            }
+            logger.debug("🔌 Opened pooled database connection");
+            return new PooledConnection(connection);
+        } catch (SQLException | RuntimeException e) {
+            synchronized (idle) {
+                openCount--;
+                idle.notify();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Recently used connections are trusted; ones that sat idle are pinged first.
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.connection.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pooled.lastUsed < validateAfterMs) {
+                return true;
+            }
+            if (pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            logger.debug("Pooled connection check failed: {}", e.getMessage());
+        }
+        synchronized (idle) {
+            invalid++;
+        }
+        logger.warn("⚠️ Dropping stale database connection");
+        return false;
+    }
+
+    /**
+     * Hands out a proxy whose {@code close()} gives the connection back instead of closing it.
+     */
+    private Connection wrap(PooledConnection pooled) {
+        boolean[] released = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        if (!released[0]) {
+                            released[0] = true;
+                            release(pooled);
+                        }
+                        return null;
+                    case "isClosed":
+                        return released[0] || pooled.connection.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled" + pooled.connection;
+                    case "unwrap":
+                        if (args[0] == Connection.class) {
+                            return proxy;
+                        }
+                        break;
+                    default:
+                        if (released[0]) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                }
+                try {
+                    return method.invoke(pooled.connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            // Don't hand the next borrower a half-finished transaction
+            if (!pooled.connection.isClosed() && !pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.warn("⚠️ Could not reset database connection, dropping it: {}", e.getMessage());
+            discard(pooled);
+            return;
+        }
+        synchronized (idle) {
+            if (closed) {
+                openCount--;
+                closeQuietly(pooled.connection);
+                return;
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.addFirst(pooled); // most recently used first, so the tail ages out
+            idle.notify();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        closeQuietly(pooled.connection);
+        synchronized (idle) {
+            openCount--;
+            idle.notify();
+        }
+    }
+
+    /**
+     * Closes connections idle longer than DB_POOL_IDLE_TIMEOUT_MS, keeping DB_POOL_MIN_IDLE.
+     */
+    private void evictIdle() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && idle.size() - expired.size() > minIdle) {
+                PooledConnection pooled = oldestFirst.next();
+                if (now - pooled.lastUsed < idleTimeoutMs) {
+                    break;
+                }
+                oldestFirst.remove();
+                expired.add(pooled);
+            }
+            openCount -= expired.size();
+            evicted += expired.size();
+        }
+        for (PooledConnection pooled : expired) {
+            closeQuietly(pooled.connection);
+        }
+        if (!expired.isEmpty()) {
+            logger.debug("Closed {} idle database connection(s)", expired.size());
+        }
+    }
+
+    /**
+     * Closes idle connections now; borrowed ones are closed as they are returned.
+     */
+    public void close() {
+        List<PooledConnection> toClose;
+        synchronized (idle) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            openCount -= idle.size();
+            idle.clear();
+            idle.notifyAll();
+        }
+        evictor.shutdownNow();
+        for (PooledConnection pooled : toClose) {
+            closeQuietly(pooled.connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close database connection: {}", e.getMessage());
+        }
+    }
+
+    public String getStats() {
+        synchronized (idle) {
+            return String.format("db pool: %d open (%d idle) of %d, borrowed: %d, created: %d, evicted: %d, stale: %d",
+                openCount, idle.size(), maxSize, borrowed, created, evicted, invalid);
+        }
+    }
+}
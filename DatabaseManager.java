@@ -1,156 +1,119 @@
 package com.bhojpurri;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.sql.Timestamp;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * DatabaseManager handles all MySQL database operations for storing
- * audio recordings, transcriptions, and translations.
+ * DatabaseManager handles storing audio recordings, transcriptions, and translations.
+ * STORAGE_BACKEND selects where they go: "mysql" (default) or "local" for the embedded
+ * log file, which needs no database server.
  */
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
     
-    // Database connection details
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/";
-    private static final String DB_NAME = "bhojpuri_billa";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "kali";
-    // Connection parameters for proper UTF-8 support
-    private static final String CONNECTION_PARAMS = "?useUnicode=true&characterEncoding=utf8&useSSL=false&allowPublicKeyRetrieval=true";
+    // How long the blocking saveTranslation waits for its batch to commit
+    private static final long SYNC_SAVE_TIMEOUT_MS = 10000;
+    // Records per keyset page when streaming history
+    private static final int HISTORY_PAGE_SIZE = 500;
     
-    private Connection connection;
+    private final TranslationStore store;
 
     /**
-     * Constructor - initializes database connection
+     * Constructor - opens the configured storage backend
+     * 
+     * @throws IllegalStateException If STORAGE_BACKEND is unknown or the local store can't be opened
      */
     public DatabaseManager() {
-        try {
-            initializeDatabase();
-            logger.info("✅ Database connection established successfully");
-        } catch (SQLException e) {
-            logger.error("❌ Failed to initialize database", e);
-        }
+        this(openStore(EnvLoader.get("STORAGE_BACKEND", "mysql"), false));
+    }
+
+    public DatabaseManager(TranslationStore store) {
+        this.store = store;
     }
 
     /**
-     * Initialize database: create DB if not exists, then create tables
+     * Open the configured store for reading only, alongside a running app. Nothing is
+     * journaled, flushed or created, and saves fail.
      */
-    private void initializeDatabase() throws SQLException {
-        // First connect without specifying database to create it
-        try (Connection tempConn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             Statement stmt = tempConn.createStatement()) {
-            
-            // Create database if not exists
-            String createDB = "CREATE DATABASE IF NOT EXISTS " + DB_NAME + 
-                            " CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci";
-            stmt.executeUpdate(createDB);
-            logger.info("📦 Database '{}' created/verified", DB_NAME);
-        }
+    public static DatabaseManager openReadOnly() {
+        return new DatabaseManager(openStore(EnvLoader.get("STORAGE_BACKEND", "mysql"), true));
+    }
 
-        // Now connect to the specific database with UTF-8 parameters
-        connection = DriverManager.getConnection(DB_URL + DB_NAME + CONNECTION_PARAMS, DB_USER, DB_PASSWORD);
-        
-        // Set connection character set to utf8mb4
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute("SET NAMES 'utf8mb4'");
-            stmt.execute("SET CHARACTER SET utf8mb4");
-            stmt.execute("SET character_set_connection=utf8mb4");
+    private static TranslationStore openStore(String backend, boolean readOnly) {
+        switch (backend.trim().toLowerCase(Locale.ROOT)) {
+            case "mysql":
+                return new MySqlTranslationStore(readOnly);
+            case "local":
+                try {
+                    return new LocalTranslationStore(readOnly);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to open local store: " + e.getMessage(), e);
+                }
+            default:
+                throw new IllegalStateException("Unknown STORAGE_BACKEND '" + backend + "' (expected mysql or local)");
         }
-        
-        // Create tables
-        createTables();
     }
 
     /**
-     * Create necessary tables if they don't exist
+     * Queue a translation record for storage. With MySQL the record is journaled to
+     * local disk first, so it is kept even if the database is unavailable.
+     * 
+     * @param audioPath Path to the recorded audio file
+     * @param audioSize Size of audio file in bytes
+     * @param englishText Transcribed English text
+     * @param translatedText Translated text in target language
+     * @param targetLanguage Target language code (e.g., "bho", "hi", "es")
+     * @param ttsPath Path to generated TTS audio file, or null to attach it later with {@link #updateTtsPath}
+     * @return A future completed with the record's ID once it has been stored
      */
-    private void createTables() throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-            
-            // Main translations table
-            String createTranslationsTable = 
-                "CREATE TABLE IF NOT EXISTS translations (" +
-                "  id INT AUTO_INCREMENT PRIMARY KEY," +
-                "  audio_file_path VARCHAR(500) NOT NULL," +
-                "  audio_file_size BIGINT," +
-                "  english_text TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci," +
-                "  translated_text TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci," +
-                "  target_language VARCHAR(10) DEFAULT 'bho'," +
-                "  tts_file_path VARCHAR(500)," +
-                "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
-                "  INDEX idx_created_at (created_at)," +
-                "  INDEX idx_audio_path (audio_file_path(255))," +
-                "  INDEX idx_language (target_language)" +
-                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
-            
-            stmt.executeUpdate(createTranslationsTable);
-            logger.info("📋 Table 'translations' created/verified");
-            
-            // Stats table for tracking usage
-            String createStatsTable = 
-                "CREATE TABLE IF NOT EXISTS usage_stats (" +
-                "  id INT AUTO_INCREMENT PRIMARY KEY," +
-                "  date DATE NOT NULL," +
-                "  total_recordings INT DEFAULT 0," +
-                "  total_translations INT DEFAULT 0," +
-                "  total_audio_size BIGINT DEFAULT 0," +
-                "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
-                "  UNIQUE KEY unique_date (date)" +
-                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
-            
-            stmt.executeUpdate(createStatsTable);
-            logger.info("📊 Table 'usage_stats' created/verified");
-        }
+    public CompletableFuture<Integer> saveTranslationAsync(String audioPath, long audioSize, String englishText,
+                                                           String translatedText, String targetLanguage, String ttsPath) {
+        CompletableFuture<Integer> id = store.save(audioPath, audioSize, englishText, translatedText, targetLanguage, ttsPath);
+        // Only stored translations count; failed and dead-lettered ones don't
+        id.thenAccept(saved -> store.getUsageStats().recordTranslation(targetLanguage, audioSize));
+        return id;
     }
 
     /**
-     * Save a complete translation record to database
+     * Save a complete translation record to database, waiting for its batch to be written
      * 
      * @param audioPath Path to the recorded audio file
      * @param audioSize Size of audio file in bytes
      * @param englishText Transcribed English text
      * @param translatedText Translated text in target language
      * @param targetLanguage Target language code (e.g., "bho", "hi", "es")
-     * @param ttsPath Path to generated TTS audio file
-     * @return The ID of the inserted record, or -1 if failed
+     * @param ttsPath Path to generated TTS audio file, or null to attach it later with {@link #updateTtsPath}
+     * @return The ID of the inserted record, or -1 if failed or still waiting in the journal
      */
     public int saveTranslation(String audioPath, long audioSize, String englishText, 
                                String translatedText, String targetLanguage, String ttsPath) {
-        String sql = "INSERT INTO translations (audio_file_path, audio_file_size, " +
-                    "english_text, translated_text, target_language, tts_file_path) VALUES (?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, audioPath);
-            pstmt.setLong(2, audioSize);
-            pstmt.setString(3, englishText);
-            pstmt.setString(4, translatedText);
-            pstmt.setString(5, targetLanguage);
-            pstmt.setString(6, ttsPath);
-            
-            int affectedRows = pstmt.executeUpdate();
-            
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int id = generatedKeys.getInt(1);
-                        logger.info("💾 Saved translation to database (ID: {}, Language: {})", id, targetLanguage);
-                        updateDailyStats(audioSize);
-                        return id;
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("❌ Failed to save translation to database", e);
+        CompletableFuture<Integer> id = saveTranslationAsync(audioPath, audioSize, englishText,
+                                                             translatedText, targetLanguage, ttsPath);
+        try {
+            return id.get(SYNC_SAVE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("⏳ Database is slow or unavailable - translation kept in the local journal for a later write");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("❌ Failed to save translation to database", e.getCause());
         }
         return -1;
     }
@@ -171,68 +134,114 @@ public class DatabaseManager {
     }
 
     /**
-     * Update daily usage statistics
+     * Attach the TTS audio file to a translation saved before speech was synthesized
+     * 
+     * @param id The ID returned by {@link #saveTranslation}
+     * @param ttsPath Path to generated TTS audio file
+     * @return true if the record was updated
      */
-    private void updateDailyStats(long audioSize) {
-        String sql = "INSERT INTO usage_stats (date, total_recordings, total_translations, total_audio_size) " +
-                    "VALUES (CURDATE(), 1, 1, ?) " +
-                    "ON DUPLICATE KEY UPDATE " +
-                    "total_recordings = total_recordings + 1, " +
-                    "total_translations = total_translations + 1, " +
-                    "total_audio_size = total_audio_size + ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setLong(1, audioSize);
-            pstmt.setLong(2, audioSize);
-            pstmt.executeUpdate();
-            logger.debug("📈 Daily stats updated");
-        } catch (SQLException e) {
-            logger.error("⚠️ Failed to update daily stats", e);
-        }
+    public boolean updateTtsPath(int id, String ttsPath) {
+        return store.updateTtsPath(id, ttsPath);
     }
 
     /**
      * Get total number of translations stored
      */
     public int getTotalTranslations() {
-        String sql = "SELECT COUNT(*) FROM translations";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
+        return store.count();
+    }
+
+    /**
+     * Get one page of translation history, newest first. Pages are keyed on
+     * (created_at, id) rather than an offset, so each page costs the same however deep it is.
+     * 
+     * @param query Language and date filters
+     * @param after The last record of the previous page, or null for the first page
+     * @param limit Maximum records to return
+     * @return The next records older than {@code after}; fewer than {@code limit} means the end
+     * @throws IOException If the store can't be read
+     */
+    public List<TranslationRecord> getHistory(HistoryQuery query, TranslationRecord after, int limit) throws IOException {
+        return store.getHistory(query, after, limit);
+    }
+
+    /**
+     * Visit every matching record, oldest first, in constant memory. With MySQL this is one
+     * query whose rows are streamed from the server, for bulk reads such as exports.
+     * 
+     * @param query Language and date filters
+     * @param visitor Called for each record; throwing stops the scan
+     * @throws IOException If the store can't be read, or the visitor throws
+     */
+    public void scanHistory(HistoryQuery query, TranslationStore.Visitor visitor) throws IOException {
+        store.scan(query, visitor);
+    }
+
+    /**
+     * Walk the whole matching history, newest first, in constant memory. Records are
+     * fetched lazily one keyset page at a time as the stream is consumed, and no
+     * connection is held between pages.
+     * 
+     * @param query Language and date filters
+     * @return A lazy stream of records; a storage error while reading throws UncheckedIOException
+     */
+    public Stream<TranslationRecord> streamHistory(HistoryQuery query) {
+        Iterator<TranslationRecord> pages = new Iterator<TranslationRecord>() {
+            private List<TranslationRecord> page = new ArrayList<>();
+            private int position = 0;
+            private boolean lastPage = false;
+            
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (lastPage) {
+                    return false;
+                }
+                TranslationRecord after = page.isEmpty() ? null : page.get(page.size() - 1);
+                try {
+                    page = getHistory(query, after, HISTORY_PAGE_SIZE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position = 0;
+                lastPage = page.size() < HISTORY_PAGE_SIZE;
+                return !page.isEmpty();
             }
-        } catch (SQLException e) {
-            logger.error("Failed to get total translations", e);
-        }
-        return 0;
+            
+            @Override
+            public TranslationRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(position++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
     }
 
     /**
      * Get recent translations (last N records)
      */
     public void printRecentTranslations(int limit) {
-        String sql = "SELECT id, english_text, bhojpuri_text, created_at " +
-                    "FROM translations ORDER BY created_at DESC LIMIT ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, limit);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                System.out.println("\n📜 Recent Translations:");
-                System.out.println("━".repeat(80));
+        try {
+            List<TranslationRecord> records = getHistory(new HistoryQuery(), null, limit);
+            System.out.println("\n📜 Recent Translations:");
+            System.out.println("━".repeat(80));
+            
+            for (TranslationRecord record : records) {
+                String english = record.getEnglishText();
+                String translated = record.getTranslatedText();
                 
-                while (rs.next()) {
-                    int id = rs.getInt("id");
-                    String english = rs.getString("english_text");
-                    String bhojpuri = rs.getString("bhojpuri_text");
-                    Timestamp created = rs.getTimestamp("created_at");
-                    
-                    System.out.println("ID: " + id + " | " + created);
-                    System.out.println("English: " + (english != null ? english : "N/A"));
-                    System.out.println("Bhojpuri: " + (bhojpuri != null ? bhojpuri : "N/A"));
-                    System.out.println("─".repeat(80));
-                }
+                System.out.println("ID: " + record.getId() + " | " + record.getCreatedAt());
+                System.out.println("English: " + (english != null ? english : "N/A"));
+                System.out.println("Translated (" + record.getTargetLanguage() + "): "
+                    + (translated != null ? translated : "N/A"));
+                System.out.println("─".repeat(80));
             }
-        } catch (SQLException e) {
+        } catch (IOException e) {
             logger.error("Failed to fetch recent translations", e);
         }
     }
@@ -241,35 +250,13 @@ public class DatabaseManager {
      * Get today's statistics
      */
     public void printTodayStats() {
-        String sql = "SELECT total_recordings, total_translations, total_audio_size " +
-                    "FROM usage_stats WHERE date = CURDATE()";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            if (rs.next()) {
-                int recordings = rs.getInt("total_recordings");
-                int translations = rs.getInt("total_translations");
-                long audioSize = rs.getLong("total_audio_size");
-                
-                System.out.println("\n📊 Today's Stats:");
-                System.out.println("━".repeat(50));
-                System.out.println("🎙️  Recordings: " + recordings);
-                System.out.println("🔄 Translations: " + translations);
-                System.out.println("💾 Audio Data: " + formatBytes(audioSize));
-                System.out.println("━".repeat(50));
-            } else {
-                System.out.println("\n📊 No activity today yet.");
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to fetch today's stats", e);
-        }
+        store.printTodayStats();
     }
 
     /**
      * Format bytes to human-readable format
      */
-    private String formatBytes(long bytes) {
+    static String formatBytes(long bytes) {
         if (bytes < 1024) return bytes + " B";
         int exp = (int) (Math.log(bytes) / Math.log(1024));
         String pre = "KMGTPE".charAt(exp - 1) + "";
@@ -277,68 +264,66 @@ public class DatabaseManager {
     }
 
     /**
-     * Search translations by English or Bhojpuri text
+     * Search English and translated text, best matches first
+     * 
+     * @param query Words or phrase to look for, in English or the translated language
+     * @param languages Target language codes to restrict to, or null/empty for all
+     * @param page Zero-based page number
+     * @param pageSize Results per page (at most 100)
+     * @return One page of matches with their relevance; empty if nothing matched or the search failed
+     */
+    public SearchResults search(String query, Set<String> languages, int page, int pageSize) {
+        return store.search(query, languages, page, pageSize);
+    }
+
+    /**
+     * Search translations by English or translated text and print the best 10 matches
      */
     public void searchTranslations(String searchTerm) {
-        String sql = "SELECT id, english_text, bhojpuri_text, created_at " +
-                    "FROM translations " +
-                    "WHERE english_text LIKE ? OR bhojpuri_text LIKE ? " +
-                    "ORDER BY created_at DESC LIMIT 10";
+        SearchResults results = search(searchTerm, null, 0, 10);
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                System.out.println("\n🔍 Search Results for: '" + searchTerm + "'");
-                System.out.println("━".repeat(80));
-                
-                boolean found = false;
-                while (rs.next()) {
-                    found = true;
-                    int id = rs.getInt("id");
-                    String english = rs.getString("english_text");
-                    String bhojpuri = rs.getString("bhojpuri_text");
-                    Timestamp created = rs.getTimestamp("created_at");
-                    
-                    System.out.println("ID: " + id + " | " + created);
-                    System.out.println("English: " + english);
-                    System.out.println("Bhojpuri: " + bhojpuri);
-                    System.out.println("─".repeat(80));
-                }
-                
-                if (!found) {
-                    System.out.println("No results found.");
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to search translations", e);
+        System.out.println("\n🔍 Search Results for: '" + searchTerm + "'");
+        System.out.println("━".repeat(80));
+        
+        for (SearchResults.Hit hit : results.getHits()) {
+            TranslationRecord record = hit.getRecord();
+            System.out.println("ID: " + record.getId() + " | " + record.getCreatedAt()
+                + String.format(" | relevance %.2f", hit.getRelevance()));
+            System.out.println("English: " + record.getEnglishText());
+            System.out.println("Translated (" + record.getTargetLanguage() + "): " + record.getTranslatedText());
+            System.out.println("─".repeat(80));
+        }
+        
+        if (results.isEmpty()) {
+            System.out.println("No results found.");
         }
     }
 
     /**
-     * Close database connection
+     * Write out pending saves and counters and close the store
      */
     public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-                logger.info("🔌 Database connection closed");
-            } catch (SQLException e) {
-                logger.error("Failed to close database connection", e);
-            }
-        }
+        store.close();
     }
 
     /**
      * Test method to verify database connectivity
      */
     public boolean testConnection() {
-        try {
-            return connection != null && !connection.isClosed();
-        } catch (SQLException e) {
-            return false;
-        }
+        return store.isAvailable();
+    }
+
+    /**
+     * In-memory usage counters; providers report their calls here
+     */
+    public UsageStats getUsageStats() {
+        return store.getUsageStats();
+    }
+
+    /**
+     * Connection pool, write-behind queue or local file usage, for logging
+     */
+    public String getPoolStats() {
+        return store.getStats();
     }
 }
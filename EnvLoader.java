@@ -117,6 +117,42 @@ public class EnvLoader {
         return (value != null && !value.isEmpty()) ? value : defaultValue;
     }
 
+    /**
+     * Gets an integer environment variable with a default fallback.
+     * 
+     * @param key The environment variable name
+     * @param defaultValue Default value if key is not found or not a number
+     * @return The parsed value, or defaultValue
+     */
+    public static int getInt(String key, int defaultValue) {
+        long value = getLong(key, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            logger.warn("Number out of range for {}: '{}', using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Gets a long environment variable with a default fallback.
+     * 
+     * @param key The environment variable name
+     * @param defaultValue Default value if key is not found or not a number
+     * @return The parsed value, or defaultValue
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for {}: '{}', using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
     /**
      * Checks if a key exists and has a non-empty value.
      * 
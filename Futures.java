@@ -0,0 +1,87 @@
+package com.bhojpurri;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helpers for composing the CompletableFuture-based transcribe / translate / speak pipeline.
+ */
+public final class Futures {
+    // One shared daemon timer for all stage timeouts
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "future-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Futures() {
+    }
+
+    /**
+     * Fails with a {@link TimeoutException} if {@code source} has not completed within
+     * {@code timeoutMs}, and cancels {@code source} so the work behind it can stop.
+     * Cancelling the returned future cancels {@code source} as well.
+     *
+     * @param timeoutMs The stage budget; 0 or less means no timeout
+     * @param stage Name used in the timeout message, e.g. "Transcription"
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> source, long timeoutMs, String stage) {
+        if (timeoutMs <= 0) {
+            return source;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(stage + " timed out after " + timeoutMs + " ms"))) {
+                source.cancel(true);
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        source.whenComplete((value, error) -> {
+            timer.cancel(false);
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(value);
+            }
+        });
+        propagateCancel(result, source);
+        return result;
+    }
+
+    /**
+     * Runs a short, non-blocking task after a delay on the shared timer thread.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return TIMER.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels {@code upstream} when {@code downstream} is cancelled.
+     */
+    public static void propagateCancel(CompletableFuture<?> downstream, Future<?> upstream) {
+        downstream.whenComplete((value, error) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Strips the CompletionException / ExecutionException wrappers added by future composition.
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bhojpurri;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Filters for walking translation history with {@link DatabaseManager#getHistory} and
+ * {@link DatabaseManager#streamHistory}. Everything is optional; an empty query matches
+ * every translation, newest first.
+ */
+public class HistoryQuery {
+    private final Set<String> languages = new LinkedHashSet<>();
+    private Instant from;
+    private Instant to;
+
+    /**
+     * Only translations into this language; call again to allow several.
+     */
+    public HistoryQuery language(String languageCode) {
+        languages.add(languageCode);
+        return this;
+    }
+
+    /**
+     * Only translations created at or after this moment.
+     */
+    public HistoryQuery from(Instant from) {
+        this.from = from;
+        return this;
+    }
+
+    /**
+     * Only translations created before this moment.
+     */
+    public HistoryQuery to(Instant to) {
+        this.to = to;
+        return this;
+    }
+
+    public Set<String> getLanguages() {
+        return Collections.unmodifiableSet(languages);
+    }
+
+    /**
+     * @return The inclusive lower bound, or null for no bound
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    /**
+     * @return The exclusive upper bound, or null for no bound
+     */
+    public Instant getTo() {
+        return to;
+    }
+}
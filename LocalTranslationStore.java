@@ -0,0 +1,581 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores translations in a local append-only log file, for kiosks without a database server
+ * and for running tests and benchmarks without MySQL.
+ *
+ * The log (translations.log in LOCAL_STORE_DIR, default "local_store") is memory-mapped and
+ * grown by doubling. Each entry is [length][CRC32][type][payload]: an insert carries the whole
+ * record, a TTS update carries the id and the new path. An index of every record's
+ * (created_at, id), language and file offset is rebuilt in memory from the log at startup;
+ * a torn entry at the end from a crash is dropped. Each save is forced to disk before its
+ * future completes.
+ */
+public class LocalTranslationStore implements TranslationStore {
+    private static final Logger logger = LoggerFactory.getLogger(LocalTranslationStore.class);
+
+    private static final String LOG_FILE = "translations.log";
+    private static final byte TYPE_INSERT = 1;
+    private static final byte TYPE_TTS_PATH = 2;
+    // length + crc + type
+    private static final int HEADER_SIZE = 9;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    // Records decoded per lock hold during a scan
+    private static final int SCAN_PAGE_SIZE = 500;
+
+    /**
+     * Where a record lives in the log. ttsOffset points at its latest TTS update, or -1.
+     */
+    private static class IndexEntry {
+        final int id;
+        final long createdAt;
+        final String targetLanguage;
+        final int offset;
+        int ttsOffset = -1;
+
+        IndexEntry(int id, long createdAt, String targetLanguage, int offset) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.targetLanguage = targetLanguage;
+            this.offset = offset;
+        }
+    }
+
+    // Newest first, the same order as the MySQL history queries
+    private static final Comparator<IndexEntry> NEWEST_FIRST =
+        Comparator.comparingLong((IndexEntry entry) -> entry.createdAt).reversed()
+                  .thenComparing(Comparator.comparingInt((IndexEntry entry) -> entry.id).reversed());
+
+    private final Path logPath;
+    private final FileChannel channel;
+    private final FileLock lock; // null when read-only
+    private final boolean readOnly;
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final NavigableSet<IndexEntry> history = new TreeSet<>(NEWEST_FIRST);
+    private final Map<Integer, IndexEntry> byId = new HashMap<>();
+    private final UsageStats usageStats = new UsageStats(null);
+    private MappedByteBuffer log;
+    private int tail = 0;
+    private int nextId = 1;
+    private boolean closed = false;
+
+    /**
+     * Open or create the log in LOCAL_STORE_DIR and index its records.
+     *
+     * @throws IOException If the log can't be opened, or another process has it open
+     */
+    public LocalTranslationStore() throws IOException {
+        this(false);
+    }
+
+    /**
+     * @param readOnly Read a snapshot of the log without locking it, e.g. for exports while the
+     *                 app is running. Entries appended after opening aren't seen.
+     * @throws IOException If the log can't be opened, or (unless read-only) another process has it open
+     */
+    public LocalTranslationStore(boolean readOnly) throws IOException {
+        this(Paths.get(EnvLoader.get("LOCAL_STORE_DIR", "local_store")), readOnly);
+    }
+
+    /**
+     * Open the log in {@code directory} instead of LOCAL_STORE_DIR.
+     */
+    LocalTranslationStore(Path directory, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+        logPath = directory.resolve(LOG_FILE);
+        if (readOnly) {
+            channel = FileChannel.open(logPath, StandardOpenOption.READ);
+            lock = null;
+        } else {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                throw new IOException(logPath + " is in use by another process");
+            }
+        }
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException(logPath + " is larger than 2 GB");
+        }
+        log = readOnly
+            ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+            : channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, size));
+        replay();
+        logger.info("💾 Local store '{}' opened{}: {} translation(s)", logPath, readOnly ? " read-only" : "",
+            byId.size());
+    }
+
+    /**
+     * Rebuild the index by scanning the log up to the first empty or damaged entry.
+     */
+    private void replay() {
+        ByteBuffer view = log.duplicate();
+        while (tail + HEADER_SIZE <= view.capacity()) {
+            int length = view.getInt(tail);
+            if (length == 0) {
+                return;
+            }
+            if (length < 0 || (long) tail + HEADER_SIZE + length > view.capacity()) {
+                if (readOnly) {
+                    // Possibly an entry the app is writing right now; leave the log as it is
+                    return;
+                }
+                logger.warn("⚠️ Dropping damaged entry at offset {} of {} and everything after it", tail, logPath);
+                break;
+            }
+            byte[] payload = new byte[length];
+            view.position(tail + HEADER_SIZE);
+            view.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(view.get(tail + 8));
+            crc.update(payload);
+            if ((int) crc.getValue() != view.getInt(tail + 4)) {
+                if (readOnly) {
+                    return;
+                }
+                logger.warn("⚠️ Dropping damaged entry at offset {} of {} and everything after it", tail, logPath);
+                break;
+            }
+            index(view.get(tail + 8), ByteBuffer.wrap(payload), tail);
+            tail += HEADER_SIZE + length;
+        }
+        if (readOnly) {
+            // The mapping can't be written; the app that owns the log keeps its tail clean
+            return;
+        }
+        // Zero everything past the last good entry so no stale entry can reappear behind a new one
+        byte[] zeros = new byte[64 * 1024];
+        view.position(tail);
+        while (view.hasRemaining()) {
+            view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+        }
+        log.force();
+    }
+
+    private void index(byte type, ByteBuffer payload, int offset) {
+        int id = payload.getInt();
+        if (type == TYPE_INSERT) {
+            long createdAt = payload.getLong();
+            payload.getLong(); // audio size
+            readString(payload); // audio path
+            readString(payload); // english
+            readString(payload); // translated
+            IndexEntry entry = new IndexEntry(id, createdAt, readString(payload), offset);
+            history.add(entry);
+            byId.put(id, entry);
+            nextId = Math.max(nextId, id + 1);
+        } else if (type == TYPE_TTS_PATH) {
+            IndexEntry entry = byId.get(id);
+            if (entry != null) {
+                entry.ttsOffset = offset;
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> save(String audioPath, long audioSize, String englishText,
+                                           String translatedText, String targetLanguage, String ttsPath) {
+        indexLock.writeLock().lock();
+        try {
+            int id = nextId;
+            long createdAt = System.currentTimeMillis();
+            ByteBuffer payload = ByteBuffer.allocate(4 + 8 + 8 + sizeOf(audioPath) + sizeOf(englishText)
+                + sizeOf(translatedText) + sizeOf(targetLanguage) + sizeOf(ttsPath));
+            payload.putInt(id).putLong(createdAt).putLong(audioSize);
+            writeString(payload, audioPath);
+            writeString(payload, englishText);
+            writeString(payload, translatedText);
+            writeString(payload, targetLanguage);
+            writeString(payload, ttsPath);
+            int offset = append(TYPE_INSERT, payload);
+
+            IndexEntry entry = new IndexEntry(id, createdAt, targetLanguage, offset);
+            history.add(entry);
+            byId.put(id, entry);
+            nextId++;
+            logger.debug("💾 Saved translation {} to local store", id);
+            return CompletableFuture.completedFuture(id);
+        } catch (IOException e) {
+            logger.error("❌ Failed to save translation to local store", e);
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updateTtsPath(int id, String ttsPath) {
+        indexLock.writeLock().lock();
+        try {
+            IndexEntry entry = byId.get(id);
+            if (entry == null) {
+                return false;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(4 + sizeOf(ttsPath));
+            payload.putInt(id);
+            writeString(payload, ttsPath);
+            entry.ttsOffset = append(TYPE_TTS_PATH, payload);
+            logger.debug("🔗 Attached TTS file to translation {}", id);
+            return true;
+        } catch (IOException e) {
+            logger.error("❌ Failed to attach TTS file to translation {}", id, e);
+            return false;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write one entry at the tail and force it to disk. Caller holds the write lock.
+     *
+     * @return The entry's offset
+     */
+    private int append(byte type, ByteBuffer payload) throws IOException {
+        if (closed) {
+            throw new IOException("Local store is closed");
+        }
+        if (readOnly) {
+            throw new IOException("Local store is open read-only");
+        }
+        byte[] bytes = payload.array();
+        long end = (long) tail + HEADER_SIZE + bytes.length;
+        if (end > log.capacity()) {
+            grow(end);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(bytes);
+
+        int offset = tail;
+        // Payload first and the length last, so a crash mid-write leaves a zero length behind
+        log.put(offset + 8, type);
+        ByteBuffer view = log.duplicate();
+        view.position(offset + HEADER_SIZE);
+        view.put(bytes);
+        log.putInt(offset + 4, (int) crc.getValue());
+        log.putInt(offset, bytes.length);
+        log.force();
+        tail = (int) end;
+        return offset;
+    }
+
+    private void grow(long needed) throws IOException {
+        long capacity = log.capacity();
+        while (capacity < needed) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            if (needed > Integer.MAX_VALUE) {
+                throw new IOException(logPath + " is full (2 GB)");
+            }
+            capacity = Integer.MAX_VALUE;
+        }
+        log.force();
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        logger.info("💾 Local store grown to {}", DatabaseManager.formatBytes(capacity));
+    }
+
+    @Override
+    public int count() {
+        indexLock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TranslationRecord> getHistory(HistoryQuery query, TranslationRecord after, int limit) {
+        List<TranslationRecord> records = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            // Start just past the last record of the previous page or the upper bound, whichever is older
+            IndexEntry start = null;
+            if (after != null) {
+                start = new IndexEntry(after.getId(), after.getCreatedAt().toEpochMilli(), null, -1);
+            }
+            if (query.getTo() != null) {
+                IndexEntry bound = new IndexEntry(Integer.MIN_VALUE, query.getTo().toEpochMilli(), null, -1);
+                if (start == null || NEWEST_FIRST.compare(bound, start) > 0) {
+                    start = bound;
+                }
+            }
+            NavigableSet<IndexEntry> remaining = start != null ? history.tailSet(start, false) : history;
+            long from = query.getFrom() != null ? query.getFrom().toEpochMilli() : Long.MIN_VALUE;
+            Set<String> languages = query.getLanguages();
+            for (IndexEntry entry : remaining) {
+                if (records.size() >= limit || entry.createdAt < from) {
+                    break;
+                }
+                if (languages.isEmpty() || languages.contains(entry.targetLanguage)) {
+                    records.add(read(entry));
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return records;
+    }
+
+    /**
+     * Oldest first, a page at a time. The lock is released between pages, so a long
+     * export doesn't hold up saves.
+     */
+    @Override
+    public void scan(HistoryQuery query, Visitor visitor) throws IOException {
+        long from = query.getFrom() != null ? query.getFrom().toEpochMilli() : Long.MIN_VALUE;
+        long to = query.getTo() != null ? query.getTo().toEpochMilli() : Long.MAX_VALUE;
+        Set<String> languages = query.getLanguages();
+        // Sorts before every record created at the lower bound
+        IndexEntry position = new IndexEntry(Integer.MIN_VALUE, from, null, -1);
+        boolean inclusive = true;
+        boolean done = false;
+        while (!done) {
+            List<TranslationRecord> page = new ArrayList<>();
+            done = true;
+            indexLock.readLock().lock();
+            try {
+                for (IndexEntry entry : history.descendingSet().tailSet(position, inclusive)) {
+                    if (entry.createdAt >= to) {
+                        break;
+                    }
+                    if (page.size() >= SCAN_PAGE_SIZE) {
+                        done = false;
+                        break;
+                    }
+                    position = entry;
+                    inclusive = false;
+                    if (languages.isEmpty() || languages.contains(entry.targetLanguage)) {
+                        page.add(read(entry));
+                    }
+                }
+            } finally {
+                indexLock.readLock().unlock();
+            }
+            for (TranslationRecord record : page) {
+                visitor.visit(record);
+            }
+        }
+    }
+
+    /**
+     * Decode a record from the log. Caller holds a lock.
+     */
+    private TranslationRecord read(IndexEntry entry) {
+        ByteBuffer payload = payloadAt(entry.offset);
+        int id = payload.getInt();
+        long createdAt = payload.getLong();
+        long audioSize = payload.getLong();
+        String audioPath = readString(payload);
+        String englishText = readString(payload);
+        String translatedText = readString(payload);
+        String targetLanguage = readString(payload);
+        String ttsPath = readString(payload);
+        if (entry.ttsOffset >= 0) {
+            ByteBuffer update = payloadAt(entry.ttsOffset);
+            update.getInt();
+            ttsPath = readString(update);
+        }
+        return new TranslationRecord(id, audioPath, audioSize, englishText, translatedText,
+                                     targetLanguage, ttsPath, Instant.ofEpochMilli(createdAt));
+    }
+
+    private ByteBuffer payloadAt(int offset) {
+        ByteBuffer view = log.duplicate();
+        int length = view.getInt(offset);
+        view.position(offset + HEADER_SIZE).limit(offset + HEADER_SIZE + length);
+        return view.slice();
+    }
+
+    /**
+     * Case-insensitive substring match over every record, newest first. Fine for the size
+     * of a kiosk's history; there is no text index.
+     */
+    @Override
+    public SearchResults search(String query, Set<String> languages, int page, int pageSize) {
+        String terms = query != null ? query.trim() : "";
+        int size = Math.max(1, Math.min(pageSize, MAX_SEARCH_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        List<SearchResults.Hit> hits = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return new SearchResults(terms, hits, pageNumber, size, false);
+        }
+
+        String needle = terms.toLowerCase(Locale.ROOT);
+        long skip = (long) pageNumber * size;
+        indexLock.readLock().lock();
+        try {
+            for (IndexEntry entry : history) {
+                if (languages != null && !languages.isEmpty() && !languages.contains(entry.targetLanguage)) {
+                    continue;
+                }
+                TranslationRecord record = read(entry);
+                if (!contains(record.getEnglishText(), needle) && !contains(record.getTranslatedText(), needle)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                // One extra hit tells us whether there is a next page
+                hits.add(new SearchResults.Hit(record, 1));
+                if (hits.size() > size) {
+                    break;
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+
+        boolean hasMore = hits.size() > size;
+        if (hasMore) {
+            hits.remove(hits.size() - 1);
+        }
+        return new SearchResults(terms, hits, pageNumber, size, hasMore);
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    /**
+     * Today's totals, counted from the log
+     */
+    @Override
+    public void printTodayStats() {
+        Instant startOfDay = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant();
+        int translations = 0;
+        long audioSize = 0;
+        Map<String, Integer> byLanguage = new TreeMap<>();
+        for (TranslationRecord record : getHistory(new HistoryQuery().from(startOfDay), null, Integer.MAX_VALUE)) {
+            translations++;
+            audioSize += record.getAudioSize();
+            byLanguage.merge(record.getTargetLanguage(), 1, Integer::sum);
+        }
+
+        if (translations == 0) {
+            System.out.println("\n📊 No activity today yet.");
+            return;
+        }
+        System.out.println("\n📊 Today's Stats:");
+        System.out.println("━".repeat(50));
+        System.out.println("🎙️  Recordings: " + translations);
+        System.out.println("🔄 Translations: " + translations);
+        System.out.println("💾 Audio Data: " + DatabaseManager.formatBytes(audioSize));
+        System.out.println("🌐 By language:");
+        for (Map.Entry<String, Integer> language : byLanguage.entrySet()) {
+            System.out.println("   " + language.getKey() + ": " + language.getValue());
+        }
+        System.out.println("━".repeat(50));
+    }
+
+    /**
+     * Counters are kept in memory only; the log itself is the record of translations
+     */
+    @Override
+    public UsageStats getUsageStats() {
+        return usageStats;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        indexLock.readLock().lock();
+        try {
+            return !closed;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String getStats() {
+        indexLock.readLock().lock();
+        try {
+            return String.format("Local store: %d translation(s), %s of %s used", byId.size(),
+                DatabaseManager.formatBytes(tail), DatabaseManager.formatBytes(log.capacity()));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        indexLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!readOnly) {
+                log.force();
+                lock.release();
+            }
+            channel.close();
+            logger.info("🔌 Local store closed");
+        } catch (IOException e) {
+            logger.warn("Failed to close local store cleanly: {}", e.getMessage());
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private static int sizeOf(String value) {
+        return 4 + (value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0);
+    }
+
+    // Strings are a byte length (-1 for null) followed by UTF-8
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,169 @@
+package com.bhojpurri;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Builds multipart/form-data request bodies that are streamed instead of assembled.
+ * Form fields, files and in-memory audio chunks are read in small pieces as the
+ * HTTP client sends them, so peak memory stays flat no matter how large the upload is.
+ * The Content-Length is still known up front, and the publisher can be subscribed to
+ * more than once (e.g. on retry) because every part is reopened per subscription.
+ */
+public class MultipartBodyPublisher {
+    private final String boundary;
+    private final List<Part> parts = new ArrayList<>();
+
+    private interface Part {
+        long length();
+        InputStream open() throws IOException;
+    }
+
+    public MultipartBodyPublisher() {
+        this("----BhojpurriFormBoundary" + System.nanoTime());
+    }
+
+    public MultipartBodyPublisher(String boundary) {
+        this.boundary = boundary;
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Value for the request's Content-Type header.
+     */
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * Adds a simple text field.
+     */
+    public MultipartBodyPublisher addField(String name, String value) {
+        addBytes(("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+            + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Adds a file part that is read from disk while uploading.
+     */
+    public MultipartBodyPublisher addFile(String name, String fileName, String contentType, Path file) throws IOException {
+        long size = Files.size(file);
+        addFileHeader(name, fileName, contentType);
+        parts.add(new Part() {
+            public long length() {
+                return size;
+            }
+
+            public InputStream open() throws IOException {
+                return Files.newInputStream(file);
+            }
+        });
+        addBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Adds a file part backed by in-memory chunks. The arrays are streamed as-is, never copied.
+     */
+    public MultipartBodyPublisher addChunks(String name, String fileName, String contentType, List<byte[]> chunks) {
+        addFileHeader(name, fileName, contentType);
+        for (byte[] chunk : chunks) {
+            addBytes(chunk);
+        }
+        addBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Creates the body publisher. Call after all parts have been added.
+     */
+    public HttpRequest.BodyPublisher build() {
+        List<Part> body = new ArrayList<>(parts);
+        body.add(bytesPart(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8)));
+
+        long contentLength = 0;
+        for (Part part : body) {
+            contentLength += part.length();
+        }
+
+        Supplier<InputStream> streamSupplier = () -> new SequenceInputStream(
+            Collections.enumeration(lazyStreams(body)));
+        // ofInputStream pulls fixed-size buffers on demand; fromPublisher adds the known length
+        return HttpRequest.BodyPublishers.fromPublisher(
+            HttpRequest.BodyPublishers.ofInputStream(streamSupplier), contentLength);
+    }
+
+    private void addFileHeader(String name, String fileName, String contentType) {
+        addBytes(("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"\r\n"
+            + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void addBytes(byte[] bytes) {
+        parts.add(bytesPart(bytes));
+    }
+
+    private static Part bytesPart(byte[] bytes) {
+        return new Part() {
+            public long length() {
+                return bytes.length;
+            }
+
+            public InputStream open() {
+                return new ByteArrayInputStream(bytes);
+            }
+        };
+    }
+
+    /**
+     * Wraps each part so files are only opened when the upload reaches them.
+     */
+    private static List<InputStream> lazyStreams(List<Part> body) {
+        List<InputStream> streams = new ArrayList<>(body.size());
+        for (Part part : body) {
+            streams.add(new InputStream() {
+                private InputStream delegate;
+
+                private InputStream delegate() throws IOException {
+                    if (delegate == null) {
+                        delegate = part.open();
+                    }
+                    return delegate;
+                }
+
+                @Override
+                public int read() throws IOException {
+                    return delegate().read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    return delegate().read(buffer, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (delegate != null) {
+                        delegate.close();
+                    }
+                }
+            });
+        }
+        return streams;
+    }
+}
@@ -0,0 +1,554 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores translations in MySQL: saves go through the journaled {@link TranslationWriter},
+ * reads use pooled connections. Server and credentials come from DB_URL, DB_NAME, DB_USER
+ * and DB_PASSWORD.
+ */
+public class MySqlTranslationStore implements TranslationStore {
+    private static final Logger logger = LoggerFactory.getLogger(MySqlTranslationStore.class);
+    
+    // Connection parameters for proper UTF-8 support, plus server-side prepared statements
+    // cached per connection so the INSERT and stats upsert are parsed once, not on every save
+    private static final String CONNECTION_PARAMS = "?useUnicode=true&characterEncoding=utf8&useSSL=false&allowPublicKeyRetrieval=true" +
+            "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=64&prepStmtCacheSqlLimit=2048" +
+            "&rewriteBatchedStatements=true";  // batched inserts go out as one multi-row INSERT
+    // Shortest query the FULLTEXT index can match (the server's ngram_token_size, 2 by default)
+    private static final int NGRAM_TOKEN_SIZE = 2;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    
+    private final String dbUrl;
+    private final String dbName;
+    private final String dbUser;
+    private final String dbPassword;
+    private final ConnectionPool pool;
+    private final TranslationWriter writer; // null when read-only
+    private final UsageStats usageStats;
+
+    /**
+     * Constructor - initializes database connection
+     */
+    public MySqlTranslationStore() {
+        this(false);
+    }
+
+    /**
+     * @param readOnly Only read the existing database, e.g. for exports: the schema is left
+     *                 alone and no write-behind journal or usage stats flusher is started, so
+     *                 it can run alongside the app
+     */
+    public MySqlTranslationStore(boolean readOnly) {
+        dbUrl = EnvLoader.get("DB_URL", "jdbc:mysql://localhost:3306/");
+        dbName = EnvLoader.get("DB_NAME", "bhojpuri_billa");
+        dbUser = EnvLoader.get("DB_USER", "root");
+        dbPassword = EnvLoader.get("DB_PASSWORD", "kali");
+        // Pool connections to the specific database with UTF-8 parameters,
+        // setting the connection character set to utf8mb4 on each one
+        pool = new ConnectionPool(dbUrl + dbName + CONNECTION_PARAMS, dbUser, dbPassword, Arrays.asList(
+            "SET NAMES 'utf8mb4'",
+            "SET CHARACTER SET utf8mb4",
+            "SET character_set_connection=utf8mb4"));
+        if (readOnly) {
+            writer = null;
+            usageStats = new UsageStats(null);
+            logger.info("✅ Database opened read-only");
+            return;
+        }
+        writer = new TranslationWriter(pool, Paths.get(EnvLoader.get("DB_JOURNAL_DIR", "db_journal")));
+        usageStats = new UsageStats(pool);
+        try {
+            initializeDatabase();
+            logger.info("✅ Database connection established successfully");
+        } catch (SQLException e) {
+            logger.error("❌ Failed to initialize database", e);
+        }
+        // Start even if MySQL is down - saved rows wait in the journal until it is back
+        writer.start();
+        usageStats.start();
+    }
+
+    /**
+     * Initialize database: create DB if not exists, then create tables
+     */
+    private void initializeDatabase() throws SQLException {
+        // First connect without specifying database to create it
+        try (Connection tempConn = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+             Statement stmt = tempConn.createStatement()) {
+            
+            // Create database if not exists
+            String createDB = "CREATE DATABASE IF NOT EXISTS " + dbName + 
+                            " CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci";
+            stmt.executeUpdate(createDB);
+            logger.info("📦 Database '{}' created/verified", dbName);
+        }
+
+        // Create tables
+        createTables();
+    }
+
+    private boolean hasIndex(Connection connection, String table, String indexName) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(dbName, null, table, false, false)) {
+            while (indexes.next()) {
+                if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Borrow a pooled connection; closing it returns it to the pool
+     */
+    private Connection getConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    /**
+     * Create necessary tables if they don't exist
+     */
+    private void createTables() throws SQLException {
+        try (Connection connection = getConnection();
+             Statement stmt = connection.createStatement()) {
+            
+            // Main translations table
+            String createTranslationsTable = 
+                "CREATE TABLE IF NOT EXISTS translations (" +
+                "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                "  request_id CHAR(36)," +
+                "  audio_file_path VARCHAR(500) NOT NULL," +
+                "  audio_file_size BIGINT," +
+                "  english_text TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci," +
+                "  translated_text TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci," +
+                "  target_language VARCHAR(10) DEFAULT 'bho'," +
+                "  tts_file_path VARCHAR(500)," +
+                "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                "  INDEX idx_created_at (created_at)," +
+                "  INDEX idx_audio_path (audio_file_path(255))," +
+                "  INDEX idx_language (target_language)," +
+                "  INDEX idx_language_created (target_language, created_at)," +
+                "  UNIQUE KEY uk_request_id (request_id)," +
+                // ngram tokenizes Devanagari and CJK text, which has no spaces to split on
+                "  FULLTEXT INDEX ft_text (english_text, translated_text) WITH PARSER ngram" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+            
+            stmt.executeUpdate(createTranslationsTable);
+            
+            // Tables created before write-behind saves lack the idempotency key used on journal replay
+            try (ResultSet columns = connection.getMetaData().getColumns(dbName, null, "translations", "request_id")) {
+                if (!columns.next()) {
+                    stmt.executeUpdate("ALTER TABLE translations ADD COLUMN request_id CHAR(36) AFTER id, " +
+                                       "ADD UNIQUE KEY uk_request_id (request_id)");
+                    logger.info("🔧 Added request_id column to 'translations'");
+                }
+            }
+            // Keyset history pages filtered by language walk this instead of sorting
+            if (!hasIndex(connection, "translations", "idx_language_created")) {
+                stmt.executeUpdate("ALTER TABLE translations " +
+                                   "ADD INDEX idx_language_created (target_language, created_at)");
+                logger.info("🔧 Added history index on 'translations'");
+            }
+            if (!hasIndex(connection, "translations", "ft_text")) {
+                logger.info("🔧 Building FULLTEXT search index on 'translations' (may take a while on large tables)...");
+                stmt.executeUpdate("ALTER TABLE translations " +
+                                   "ADD FULLTEXT INDEX ft_text (english_text, translated_text) WITH PARSER ngram");
+                logger.info("🔧 FULLTEXT search index ready");
+            }
+            logger.info("📋 Table 'translations' created/verified");
+            
+            // Stats table for tracking usage
+            String createStatsTable = 
+                "CREATE TABLE IF NOT EXISTS usage_stats (" +
+                "  id INT AUTO_INCREMENT PRIMARY KEY," +
+                "  date DATE NOT NULL," +
+                "  total_recordings INT DEFAULT 0," +
+                "  total_translations INT DEFAULT 0," +
+                "  total_audio_size BIGINT DEFAULT 0," +
+                "  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                "  UNIQUE KEY unique_date (date)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+            
+            stmt.executeUpdate(createStatsTable);
+            logger.info("📊 Table 'usage_stats' created/verified");
+            
+            // Per-language and per-provider breakdown of the daily totals
+            String createStatsDetailTable = 
+                "CREATE TABLE IF NOT EXISTS usage_stats_detail (" +
+                "  date DATE NOT NULL," +
+                "  dimension VARCHAR(16) NOT NULL," +
+                "  name VARCHAR(64) NOT NULL," +
+                "  requests BIGINT DEFAULT 0," +
+                "  failures BIGINT DEFAULT 0," +
+                "  audio_size BIGINT DEFAULT 0," +
+                "  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                "  PRIMARY KEY (date, dimension, name)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+            
+            stmt.executeUpdate(createStatsDetailTable);
+            logger.info("📊 Table 'usage_stats_detail' created/verified");
+        }
+    }
+
+    /**
+     * Queue a translation record for the next batched database write. The record is
+     * journaled to local disk first, so it is kept even if MySQL is unavailable.
+     * 
+     * @return A future completed with the record's ID once its batch has been committed
+     */
+    @Override
+    public CompletableFuture<Integer> save(String audioPath, long audioSize, String englishText,
+                                           String translatedText, String targetLanguage, String ttsPath) {
+        if (writer == null) {
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Database is open read-only"));
+            return failed;
+        }
+        return writer.enqueue(new TranslationWriter.PendingTranslation(
+            audioPath, audioSize, englishText, translatedText, targetLanguage, ttsPath));
+    }
+
+    /**
+     * Attach the TTS audio file to a translation saved before speech was synthesized
+     * 
+     * @param id The ID returned by {@link #save}
+     * @param ttsPath Path to generated TTS audio file
+     * @return true if the record was updated
+     */
+    @Override
+    public boolean updateTtsPath(int id, String ttsPath) {
+        if (writer == null) {
+            logger.error("❌ Failed to attach TTS file to translation {}: database is open read-only", id);
+            return false;
+        }
+        String sql = "UPDATE translations SET tts_file_path = ? WHERE id = ?";
+        
+        try (Connection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, ttsPath);
+            pstmt.setInt(2, id);
+            boolean updated = pstmt.executeUpdate() > 0;
+            logger.debug("🔗 Attached TTS file to translation {}: {}", id, updated);
+            return updated;
+        } catch (SQLException e) {
+            logger.error("❌ Failed to attach TTS file to translation {}", id, e);
+            return false;
+        }
+    }
+
+    /**
+     * Get total number of translations stored
+     */
+    @Override
+    public int count() {
+        String sql = "SELECT COUNT(*) FROM translations";
+        try (Connection connection = getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to get total translations", e);
+        }
+        return 0;
+    }
+
+    /**
+     * Get one page of translation history, newest first. Pages are keyed on
+     * (created_at, id) rather than an offset, so each page costs the same however deep it is.
+     * 
+     * @param query Language and date filters
+     * @param after The last record of the previous page, or null for the first page
+     * @param limit Maximum records to return
+     * @return The next records older than {@code after}; fewer than {@code limit} means the end
+     * @throws IOException If the query fails
+     */
+    @Override
+    public List<TranslationRecord> getHistory(HistoryQuery query, TranslationRecord after, int limit) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(TranslationRecord.COLUMNS).append(" FROM translations");
+        appendFilters(sql, query);
+        if (after != null) {
+            // Expanded form of (created_at, id) < (?, ?), which MySQL can turn into an index range
+            sql.append(" AND (created_at < ? OR (created_at = ? AND id < ?))");
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        
+        List<TranslationRecord> records = new ArrayList<>();
+        try (Connection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
+            int param = bindFilters(pstmt, query);
+            if (after != null) {
+                Timestamp afterCreated = Timestamp.from(after.getCreatedAt());
+                pstmt.setTimestamp(param++, afterCreated);
+                pstmt.setTimestamp(param++, afterCreated);
+                pstmt.setInt(param++, after.getId());
+            }
+            pstmt.setInt(param, limit);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(TranslationRecord.fromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read translation history: " + e.getMessage(), e);
+        }
+        return records;
+    }
+
+    /**
+     * Stream every matching row, oldest first, over one query. The result set is read
+     * row by row from the server instead of being buffered in the driver, and holds
+     * its pooled connection until the scan ends.
+     */
+    @Override
+    public void scan(HistoryQuery query, Visitor visitor) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(TranslationRecord.COLUMNS).append(" FROM translations");
+        appendFilters(sql, query);
+        sql.append(" ORDER BY created_at, id");
+        
+        try (Connection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql.toString(),
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            bindFilters(pstmt, query);
+            // Connector/J streams rows one at a time for a forward-only, read-only statement with this fetch size
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(TranslationRecord.fromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to scan translations: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add the WHERE clause for a history query's language and date filters
+     */
+    private void appendFilters(StringBuilder sql, HistoryQuery query) {
+        sql.append(" WHERE 1 = 1");
+        if (!query.getLanguages().isEmpty()) {
+            sql.append(" AND target_language IN (")
+               .append(String.join(", ", Collections.nCopies(query.getLanguages().size(), "?"))).append(")");
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND created_at >= ?");
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND created_at < ?");
+        }
+    }
+
+    /**
+     * Bind the parameters added by {@link #appendFilters}
+     * 
+     * @return The index of the next parameter
+     */
+    private int bindFilters(PreparedStatement pstmt, HistoryQuery query) throws SQLException {
+        int param = 1;
+        for (String language : query.getLanguages()) {
+            pstmt.setString(param++, language);
+        }
+        if (query.getFrom() != null) {
+            pstmt.setTimestamp(param++, Timestamp.from(query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            pstmt.setTimestamp(param++, Timestamp.from(query.getTo()));
+        }
+        return param;
+    }
+
+    /**
+     * Get today's statistics
+     */
+    @Override
+    public void printTodayStats() {
+        String sql = "SELECT total_recordings, total_translations, total_audio_size " +
+                    "FROM usage_stats WHERE date = ?";
+        
+        try {
+            // Include what is still only counted in memory
+            usageStats.flush();
+        } catch (SQLException e) {
+            logger.warn("Failed to flush usage stats: {}", e.getMessage());
+        }
+        
+        // Bound from Java, the same clock the counters are filed by
+        java.sql.Date today = java.sql.Date.valueOf(UsageStats.today());
+        try (Connection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setDate(1, today);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    int recordings = rs.getInt("total_recordings");
+                    int translations = rs.getInt("total_translations");
+                    long audioSize = rs.getLong("total_audio_size");
+                
+                    System.out.println("\n📊 Today's Stats:");
+                    System.out.println("━".repeat(50));
+                    System.out.println("🎙️  Recordings: " + recordings);
+                    System.out.println("🔄 Translations: " + translations);
+                    System.out.println("💾 Audio Data: " + DatabaseManager.formatBytes(audioSize));
+                    printTodayBreakdown(connection, today);
+                    System.out.println("━".repeat(50));
+                } else {
+                    System.out.println("\n📊 No activity today yet.");
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to fetch today's stats", e);
+        }
+    }
+
+    /**
+     * Print today's per-language and per-provider counts
+     */
+    private void printTodayBreakdown(Connection connection, java.sql.Date today) throws SQLException {
+        String sql = "SELECT dimension, name, requests, failures " +
+                    "FROM usage_stats_detail WHERE date = ? ORDER BY dimension, requests DESC";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setDate(1, today);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                String dimension = null;
+                while (rs.next()) {
+                    if (!rs.getString("dimension").equals(dimension)) {
+                        dimension = rs.getString("dimension");
+                        System.out.println(UsageStats.DIMENSION_LANGUAGE.equals(dimension) ? "🌐 By language:" : "🔌 By provider:");
+                    }
+                    long failures = rs.getLong("failures");
+                    System.out.println("   " + rs.getString("name") + ": " + rs.getLong("requests")
+                        + (failures > 0 ? " (" + failures + " failed)" : ""));
+                }
+            }
+        }
+    }
+
+    /**
+     * Search English and translated text using the FULLTEXT index, best matches first
+     * 
+     * @param query Words or phrase to look for, in English or the translated language
+     * @param languages Target language codes to restrict to, or null/empty for all
+     * @param page Zero-based page number
+     * @param pageSize Results per page (at most 100)
+     * @return One page of matches with their relevance; empty if nothing matched or the query failed
+     */
+    @Override
+    public SearchResults search(String query, Set<String> languages, int page, int pageSize) {
+        String terms = query != null ? query.trim() : "";
+        int size = Math.max(1, Math.min(pageSize, MAX_SEARCH_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        List<SearchResults.Hit> hits = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return new SearchResults(terms, hits, pageNumber, size, false);
+        }
+        
+        // Queries shorter than one ngram can't use the index; they are rare enough to scan for
+        boolean useIndex = terms.codePointCount(0, terms.length()) >= NGRAM_TOKEN_SIZE;
+        StringBuilder sql = new StringBuilder("SELECT ").append(TranslationRecord.COLUMNS);
+        if (useIndex) {
+            sql.append(", MATCH(english_text, translated_text) AGAINST (?) AS relevance FROM translations ")
+               .append("WHERE MATCH(english_text, translated_text) AGAINST (?)");
+        } else {
+            sql.append(", 1 AS relevance FROM translations WHERE (english_text LIKE ? OR translated_text LIKE ?)");
+        }
+        List<String> languageList = languages != null ? new ArrayList<>(languages) : new ArrayList<>();
+        if (!languageList.isEmpty()) {
+            sql.append(" AND target_language IN (").append(String.join(", ", Collections.nCopies(languageList.size(), "?"))).append(")");
+        }
+        sql.append(useIndex ? " ORDER BY relevance DESC, id DESC" : " ORDER BY id DESC");
+        sql.append(" LIMIT ? OFFSET ?");
+        
+        try (Connection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
+            int param = 1;
+            String match = useIndex ? terms : "%" + terms.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            pstmt.setString(param++, match);
+            pstmt.setString(param++, match);
+            for (String language : languageList) {
+                pstmt.setString(param++, language);
+            }
+            // One extra row tells us whether there is a next page
+            pstmt.setInt(param++, size + 1);
+            pstmt.setLong(param, (long) pageNumber * size);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    hits.add(new SearchResults.Hit(TranslationRecord.fromResultSet(rs), rs.getDouble("relevance")));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to search translations", e);
+            return new SearchResults(terms, new ArrayList<>(), pageNumber, size, false);
+        }
+        
+        boolean hasMore = hits.size() > size;
+        if (hasMore) {
+            hits.remove(hits.size() - 1);
+        }
+        return new SearchResults(terms, hits, pageNumber, size, hasMore);
+    }
+
+    /**
+     * Close all pooled database connections
+     */
+    @Override
+    public void close() {
+        // Flush queued saves and counters while the pool is still open
+        if (writer != null) {
+            writer.close();
+            usageStats.close();
+            logger.info("Database at shutdown - {}, {}", writer.getStats(), pool.getStats());
+        }
+        pool.close();
+        logger.info("🔌 Database connection closed");
+    }
+
+    /**
+     * Verify a pooled connection to MySQL can be opened
+     */
+    @Override
+    public boolean isAvailable() {
+        try (Connection connection = getConnection()) {
+            return connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public UsageStats getUsageStats() {
+        return usageStats;
+    }
+
+    /**
+     * Connection pool and write-behind queue usage, for logging
+     */
+    @Override
+    public String getStats() {
+        return writer != null ? pool.getStats() + "\n" + writer.getStats() : pool.getStats();
+    }
+}
@@ -0,0 +1,67 @@
+package com.bhojpurri;
+
+/**
+ * Fixed-size circular byte buffer for raw PCM audio.
+ * Writes overwrite the oldest bytes once the buffer is full, and no memory is
+ * allocated after construction, so it can sit behind an always-open microphone line.
+ * Not thread-safe; callers synchronize externally.
+ */
+public class PcmRingBuffer {
+    private final byte[] buffer;
+    private int writePos = 0;
+    private int size = 0;
+
+    public PcmRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive: " + capacity);
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Appends bytes, overwriting the oldest data when full.
+     */
+    public void write(byte[] data, int offset, int length) {
+        if (length >= buffer.length) {
+            // Only the newest capacity bytes survive
+            System.arraycopy(data, offset + length - buffer.length, buffer, 0, buffer.length);
+            writePos = 0;
+            size = buffer.length;
+            return;
+        }
+        int firstPart = Math.min(length, buffer.length - writePos);
+        System.arraycopy(data, offset, buffer, writePos, firstPart);
+        System.arraycopy(data, offset + firstPart, buffer, 0, length - firstPart);
+        writePos = (writePos + length) % buffer.length;
+        size = Math.min(buffer.length, size + length);
+    }
+
+    /**
+     * Copies the most recent bytes (oldest first) into {@code dest}.
+     *
+     * @param dest Destination array
+     * @param maxBytes Maximum number of bytes to copy
+     * @return Number of bytes copied
+     */
+    public int readLatest(byte[] dest, int maxBytes) {
+        int count = Math.min(Math.min(maxBytes, size), dest.length);
+        int start = (writePos - count + buffer.length) % buffer.length;
+        int firstPart = Math.min(count, buffer.length - start);
+        System.arraycopy(buffer, start, dest, 0, firstPart);
+        System.arraycopy(buffer, 0, dest, firstPart, count - firstPart);
+        return count;
+    }
+
+    public void clear() {
+        writePos = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
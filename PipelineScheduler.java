@@ -0,0 +1,259 @@
+package com.bhojpurri;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the utterance pipeline on named, bounded stages instead of the JVM-wide common pool.
+ * Each stage (transcribe, translate, synthesize, persist) has its own worker threads, a limit
+ * on how many tasks may be in flight and a bounded wait queue. A full queue rejects new work
+ * straight away (backpressure) rather than letting it pile up, and because stages never share
+ * threads, a slow MySQL or TTS provider cannot hold up transcription of the next utterance.
+ *
+ * Each stage is configured with PIPELINE_&lt;STAGE&gt;_CONCURRENCY and PIPELINE_&lt;STAGE&gt;_QUEUE,
+ * e.g. PIPELINE_PERSIST_QUEUE=64.
+ */
+public class PipelineScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(PipelineScheduler.class);
+
+    public enum Stage {
+        TRANSCRIBE(2, 4),
+        TRANSLATE(4, 8),
+        SYNTHESIZE(1, 4),   // one voice at a time
+        PERSIST(4, 64);     // one per pooled DB connection (DB_POOL_SIZE)
+
+        private final int defaultConcurrency;
+        private final int defaultQueue;
+
+        Stage(int defaultConcurrency, int defaultQueue) {
+            this.defaultConcurrency = defaultConcurrency;
+            this.defaultQueue = defaultQueue;
+        }
+    }
+
+    private final Map<Stage, StageExecutor> stages = new EnumMap<>(Stage.class);
+
+    public PipelineScheduler() {
+        for (Stage stage : Stage.values()) {
+            String prefix = "PIPELINE_" + stage.name() + "_";
+            int concurrency = Math.max(1, EnvLoader.getInt(prefix + "CONCURRENCY", stage.defaultConcurrency));
+            int queueLimit = Math.max(0, EnvLoader.getInt(prefix + "QUEUE", stage.defaultQueue));
+            stages.put(stage, new StageExecutor(stage.name().toLowerCase(Locale.ROOT), concurrency, queueLimit));
+        }
+    }
+
+    /**
+     * Runs a blocking task (e.g. a JDBC write or CPU-bound audio work) on a stage's threads.
+     *
+     * @return A future for the task's result; fails with {@link RejectedExecutionException}
+     *         if the stage's queue is full
+     */
+    public <T> CompletableFuture<T> submit(Stage stage, Supplier<T> task) {
+        return submitAsync(stage, () -> CompletableFuture.completedFuture(task.get()));
+    }
+
+    /**
+     * Starts a non-blocking task (e.g. an HTTP {@code sendAsync}) on a stage. The stage's
+     * in-flight limit applies until the returned future completes, not just while the
+     * starting code runs.
+     *
+     * @return A future for the task's result; fails with {@link RejectedExecutionException}
+     *         if the stage's queue is full
+     */
+    public <T> CompletableFuture<T> submitAsync(Stage stage, Supplier<CompletableFuture<T>> task) {
+        return stages.get(stage).submit(task);
+    }
+
+    /**
+     * One line per stage with queue depth, in-flight count and latency.
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        for (StageExecutor executor : stages.values()) {
+            if (stats.length() > 0) {
+                stats.append('\n');
+            }
+            stats.append(executor.getStats());
+        }
+        return stats.toString();
+    }
+
+    /**
+     * Stops all stage threads. Queued tasks are not run.
+     */
+    public void shutdown() {
+        for (StageExecutor executor : stages.values()) {
+            executor.threads.shutdownNow();
+        }
+    }
+
+    /**
+     * A task waiting for a free slot, with the future its caller may cancel meanwhile.
+     */
+    private static class Queued {
+        final CompletableFuture<?> result;
+        final Runnable start;
+
+        Queued(CompletableFuture<?> result, Runnable start) {
+            this.result = result;
+            this.start = start;
+        }
+    }
+
+    /**
+     * A stage's threads plus its admission control. Tasks wait in {@code pending} until
+     * fewer than {@code concurrency} are in flight; a task cancelled while it waits leaves
+     * the queue without running.
+     */
+    private static class StageExecutor {
+        private final String name;
+        private final int concurrency;
+        private final int queueLimit;
+        private final ExecutorService threads;
+        private final Deque<Queued> pending = new ArrayDeque<>();
+        private int inFlight = 0; // guarded by pending
+
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+        private final AtomicLong totalQueueNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+
+        StageExecutor(String name, int concurrency, int queueLimit) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.queueLimit = queueLimit;
+            AtomicInteger threadCount = new AtomicInteger();
+            this.threads = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread thread = new Thread(r, "pipeline-" + name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            long queuedAt = System.nanoTime();
+            Runnable start = () -> threads.execute(() -> run(task, result, queuedAt));
+
+            synchronized (pending) {
+                if (inFlight < concurrency) {
+                    inFlight++;
+                } else if (pending.size() < queueLimit) {
+                    Queued queued = new Queued(result, start);
+                    pending.add(queued);
+                    result.whenComplete((value, error) -> {
+                        if (result.isCancelled()) {
+                            dropCancelled(queued);
+                        }
+                    });
+                    return result;
+                } else {
+                    rejected.incrementAndGet();
+                    logger.warn("Pipeline stage '{}' is full ({} running, {} queued), rejecting task",
+                        name, inFlight, pending.size());
+                    result.completeExceptionally(new RejectedExecutionException(
+                        "Pipeline stage '" + name + "' is busy, please try again"));
+                    return result;
+                }
+            }
+            start.run();
+            return result;
+        }
+
+        private <T> void run(Supplier<CompletableFuture<T>> task, CompletableFuture<T> result, long queuedAt) {
+            if (result.isDone()) {
+                // Cancelled after it was handed a slot but before a thread picked it up
+                cancelled.incrementAndGet();
+                startNext();
+                return;
+            }
+            long startedAt = System.nanoTime();
+            totalQueueNanos.addAndGet(startedAt - queuedAt);
+
+            CompletableFuture<T> work;
+            try {
+                work = task.get();
+            } catch (RuntimeException e) {
+                work = CompletableFuture.failedFuture(e);
+            }
+            Futures.propagateCancel(result, work);
+
+            work.whenComplete((value, error) -> {
+                long runNanos = System.nanoTime() - startedAt;
+                totalRunNanos.addAndGet(runNanos);
+                maxRunNanos.accumulateAndGet(runNanos, Math::max);
+                if (error != null) {
+                    failed.incrementAndGet();
+                    result.completeExceptionally(Futures.unwrap(error));
+                } else {
+                    completed.incrementAndGet();
+                    result.complete(value);
+                }
+                startNext();
+            });
+        }
+
+        private void startNext() {
+            Queued next;
+            synchronized (pending) {
+                while (true) {
+                    next = pending.poll();
+                    if (next == null) {
+                        inFlight--;
+                        return;
+                    }
+                    if (!next.result.isDone()) {
+                        break;
+                    }
+                    cancelled.incrementAndGet(); // cancelled while it waited
+                }
+            }
+            // The finished task's slot passes straight to the next one
+            next.start.run();
+        }
+
+        /**
+         * Takes a task cancelled while queued out of line, freeing its queue space.
+         */
+        private void dropCancelled(Queued queued) {
+            synchronized (pending) {
+                if (pending.remove(queued)) {
+                    cancelled.incrementAndGet();
+                }
+            }
+        }
+
+        String getStats() {
+            int running;
+            int queued;
+            synchronized (pending) {
+                running = inFlight;
+                queued = pending.size();
+            }
+            long finished = completed.get() + failed.get();
+            return String.format("%-10s running: %d/%d, queued: %d/%d, completed: %d, failed: %d, rejected: %d, "
+                    + "cancelled in queue: %d, avg wait: %d ms, avg run: %d ms, max run: %d ms",
+                name, running, concurrency, queued, queueLimit, completed.get(), failed.get(), rejected.get(),
+                cancelled.get(),
+                finished == 0 ? 0 : totalQueueNanos.get() / finished / 1_000_000,
+                finished == 0 ? 0 : totalRunNanos.get() / finished / 1_000_000,
+                maxRunNanos.get() / 1_000_000);
+        }
+    }
+}
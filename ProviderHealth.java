@@ -0,0 +1,304 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the health of one external API (Groq, OpenL, ElevenLabs, Google TTS) and guards
+ * calls to it with a circuit breaker.
+ *
+ * Every call records its latency and outcome in a rolling window. After
+ * CIRCUIT_FAILURE_THRESHOLD (default 5) consecutive failures, or an error rate of 50% or
+ * more over the recent window, the circuit opens and calls fail immediately with
+ * {@link CircuitOpenException} for CIRCUIT_OPEN_MS (default 30000), so fallbacks answer in
+ * milliseconds instead of waiting out a timeout. After that a single probe request is let
+ * through; success closes the circuit again.
+ *
+ * Request timeouts adapt to the provider: twice the p99 of recent successful latencies,
+ * kept between PROVIDER_MIN_TIMEOUT_MS (default 2000) and the provider's configured ceiling.
+ * Calls whose cost grows with their input, like transcribing longer audio, pass the amount
+ * of work; latencies are then kept per unit of work and the timeout scaled by it.
+ * Only transport errors, timeouts and HTTP 5xx count as failures. A 429 means the provider is
+ * up but we are over quota; {@link RateLimiter} handles that, so it is not held against it.
+ */
+public class ProviderHealth {
+    private static final Logger logger = LoggerFactory.getLogger(ProviderHealth.class);
+
+    private static final int WINDOW = 50;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int MIN_ERROR_RATE_SAMPLES = 10;
+    private static final double ERROR_RATE_THRESHOLD = 0.5;
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of calling a provider whose circuit is open.
+     */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException(String message) {
+            super(message);
+        }
+    }
+
+    private final String name;
+    private final Duration maxTimeout;
+    private final long minTimeoutMs;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // All state below is guarded by this
+    private final long[] latencies = new long[WINDOW];   // successful calls only, ms per unit of work
+    private final boolean[] outcomes = new boolean[WINDOW]; // true = failure
+    private int latencyCount = 0;
+    private int outcomeCount = 0;
+    private int consecutiveFailures = 0;
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean probeInFlight = false;
+    private long totalCalls = 0;
+    private long totalFailures = 0;
+    private long rejectedCalls = 0;
+    private volatile UsageStats usageStats;
+
+    /**
+     * @param name Provider name used in logs and errors, e.g. "Groq"
+     * @param maxTimeout The longest a request may take; also used until enough latency samples exist
+     */
+    public ProviderHealth(String name, Duration maxTimeout) {
+        this.name = name;
+        this.maxTimeout = maxTimeout;
+        this.minTimeoutMs = Math.min(maxTimeout.toMillis(), EnvLoader.getLong("PROVIDER_MIN_TIMEOUT_MS", 2000));
+        this.failureThreshold = Math.max(1, EnvLoader.getInt("CIRCUIT_FAILURE_THRESHOLD", 5));
+        this.openMillis = EnvLoader.getLong("CIRCUIT_OPEN_MS", 30000);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Counts every call that reaches the provider in the daily per-provider usage stats.
+     */
+    public void setUsageStats(UsageStats usageStats) {
+        this.usageStats = usageStats;
+    }
+
+    /**
+     * The request timeout to use for the next call to this provider.
+     */
+    public Duration getTimeout() {
+        return getTimeout(1);
+    }
+
+    /**
+     * The request timeout for a call doing {@code work} units of work, e.g. seconds of audio.
+     */
+    public synchronized Duration getTimeout(double work) {
+        int samples = Math.min(latencyCount, WINDOW);
+        if (samples < MIN_LATENCY_SAMPLES) {
+            return maxTimeout;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        long p99 = sorted[(int) Math.ceil(samples * 0.99) - 1];
+        long timeoutMs = Math.max(minTimeoutMs, Math.min(maxTimeout.toMillis(), (long) (p99 * 2 * work)));
+        return Duration.ofMillis(timeoutMs);
+    }
+
+    /**
+     * @return true if a call may go out now; false while the circuit is open
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                rejectedCalls++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            logger.info("{} circuit half-open, sending a probe request", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                rejectedCalls++;
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess(long latencyMs) {
+        totalCalls++;
+        countUsage(false);
+        latencies[latencyCount % WINDOW] = latencyMs;
+        latencyCount++;
+        addOutcome(false);
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            logger.info("✅ {} circuit closed after successful probe", name);
+            state = State.CLOSED;
+            probeInFlight = false;
+            // Start the error-rate window fresh so old failures don't reopen it
+            outcomeCount = 0;
+        }
+    }
+
+    public synchronized void recordFailure(Throwable error) {
+        totalCalls++;
+        totalFailures++;
+        countUsage(true);
+        addOutcome(true);
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            open("probe failed: " + error.getMessage());
+        } else if (state == State.CLOSED
+                && (consecutiveFailures >= failureThreshold || errorRate() >= ERROR_RATE_THRESHOLD)) {
+            open(consecutiveFailures + " consecutive failures, error rate "
+                + String.format("%.0f%%", errorRate() * 100) + ", last: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Sends a request through the breaker, recording its latency and outcome.
+     *
+     * @throws CircuitOpenException if the circuit is open
+     */
+    public <T> HttpResponse<T> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return send(client, request, handler, 1);
+    }
+
+    /**
+     * {@link #send} for a request doing {@code work} units of work; see {@link #getTimeout(double)}.
+     */
+    public <T> HttpResponse<T> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                    double work) throws IOException, InterruptedException {
+        if (!allowRequest()) {
+            throw circuitOpen();
+        }
+        long start = System.nanoTime();
+        HttpResponse<T> response;
+        try {
+            response = client.send(request, handler);
+        } catch (IOException e) {
+            recordFailure(e);
+            throw e;
+        } catch (InterruptedException | RuntimeException e) {
+            releaseProbe();
+            throw e;
+        }
+        record(response, start, work);
+        return response;
+    }
+
+    /**
+     * Async variant of {@link #send}; fails immediately with {@link CircuitOpenException}
+     * if the circuit is open.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpClient client, HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> handler) {
+        return sendAsync(client, request, handler, 1);
+    }
+
+    /**
+     * {@link #sendAsync} for a request doing {@code work} units of work; see {@link #getTimeout(double)}.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpClient client, HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> handler, double work) {
+        if (!allowRequest()) {
+            return CompletableFuture.failedFuture(circuitOpen());
+        }
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> exchange;
+        try {
+            exchange = client.sendAsync(request, handler);
+        } catch (RuntimeException e) {
+            releaseProbe();
+            return CompletableFuture.failedFuture(e);
+        }
+        exchange.whenComplete((response, error) -> {
+            if (error == null) {
+                record(response, start, work);
+            } else if (exchange.isCancelled()) {
+                releaseProbe(); // our own decision, says nothing about the provider
+            } else {
+                recordFailure(Futures.unwrap(error));
+            }
+        });
+        return exchange;
+    }
+
+    private void record(HttpResponse<?> response, long startNanos, double work) {
+        int status = response.statusCode();
+        if (status >= 500) {
+            recordFailure(new IOException("HTTP " + status));
+        } else if (status == 429) {
+            releaseProbe(); // over quota, not down; a quick 429 would also skew the latency window
+            countUsage(true);
+        } else {
+            recordSuccess((long) ((System.nanoTime() - startNanos) / 1_000_000 / work));
+        }
+    }
+
+    private void countUsage(boolean failed) {
+        UsageStats stats = usageStats;
+        if (stats != null) {
+            stats.recordProviderCall(name, failed);
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    private synchronized CircuitOpenException circuitOpen() {
+        long retryInMs = Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+        return new CircuitOpenException(name + " is unavailable (circuit open, retrying in "
+            + (retryInMs + 999) / 1000 + " s)");
+    }
+
+    private void addOutcome(boolean failure) {
+        outcomes[outcomeCount % WINDOW] = failure;
+        outcomeCount++;
+    }
+
+    private double errorRate() {
+        int samples = Math.min(outcomeCount, WINDOW);
+        if (samples < MIN_ERROR_RATE_SAMPLES) {
+            return 0;
+        }
+        int failures = 0;
+        for (int i = 0; i < samples; i++) {
+            if (outcomes[i]) {
+                failures++;
+            }
+        }
+        return failures / (double) samples;
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        logger.warn("⛔ {} circuit opened for {} ms ({})", name, openMillis, reason);
+    }
+
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < openMillis;
+    }
+
+    public synchronized String getStats() {
+        return String.format("%s: %s, calls: %d, failures: %d, rejected: %d, error rate: %.0f%%, timeout: %d ms",
+            name, state, totalCalls, totalFailures, rejectedCalls, errorRate() * 100, getTimeout().toMillis());
+    }
+}
@@ -0,0 +1,284 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client-side token bucket for one provider's per-minute quota (Groq, OpenL).
+ *
+ * Requests take a token before they go out. When the bucket is empty they wait in a FIFO
+ * queue and are released in arrival order as tokens refill, so a burst of utterances is
+ * spread over the quota instead of failing with HTTP 429. If the provider answers 429
+ * anyway, the bucket is drained and paused for the response's Retry-After, and the request
+ * is queued again (up to RATE_LIMIT_MAX_RETRIES times, default 2).
+ *
+ * Each provider is configured with &lt;NAME&gt;_REQUESTS_PER_MINUTE and &lt;NAME&gt;_BURST,
+ * e.g. GROQ_REQUESTS_PER_MINUTE=20. At most RATE_LIMIT_MAX_QUEUE (default 100) requests
+ * may wait at once.
+ */
+public class RateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final String name;
+    private final int requestsPerMinute;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxQueue;
+    private final int maxRetries;
+
+    // All state below is guarded by this
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double tokens;
+    // nanoTime values, compared by difference because they may be negative or wrap
+    private long lastRefill;
+    private long pausedUntil;
+    private boolean drainScheduled = false;
+    private long granted = 0;
+    private long delayed = 0;
+    private long throttled = 0;
+
+    /**
+     * @param name Provider name; also the prefix of its settings, e.g. "Groq" reads GROQ_REQUESTS_PER_MINUTE
+     * @param defaultRequestsPerMinute Quota to assume when nothing is configured
+     */
+    public RateLimiter(String name, int defaultRequestsPerMinute) {
+        String prefix = name.toUpperCase();
+        this.name = name;
+        this.requestsPerMinute = Math.max(1, EnvLoader.getInt(prefix + "_REQUESTS_PER_MINUTE", defaultRequestsPerMinute));
+        this.capacity = Math.max(1, EnvLoader.getInt(prefix + "_BURST", Math.max(1, requestsPerMinute / 4)));
+        this.tokensPerNano = requestsPerMinute / 60e9;
+        this.maxQueue = Math.max(0, EnvLoader.getInt("RATE_LIMIT_MAX_QUEUE", 100));
+        this.maxRetries = Math.max(0, EnvLoader.getInt("RATE_LIMIT_MAX_RETRIES", 2));
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill; // not paused
+    }
+
+    /**
+     * Takes a token, waiting behind earlier callers if none is left.
+     *
+     * @return A future completed when the request may go out; fails with an IOException if
+     *         too many requests are already waiting. Cancelling it gives up the place in line.
+     */
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            if (waiters.isEmpty() && now - pausedUntil >= 0 && tokens >= 1) {
+                tokens -= 1;
+                granted++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiters.size() >= maxQueue) {
+                logger.warn("{} rate limit queue is full ({} waiting), rejecting request", name, waiters.size());
+                return CompletableFuture.failedFuture(new IOException(
+                    name + " is over its request quota, please try again shortly"));
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            delayed++;
+            scheduleDrain(now);
+            logger.debug("{} rate limited, {} request(s) waiting", name, waiters.size());
+            return waiter;
+        }
+    }
+
+    /**
+     * Blocking variant of {@link #acquire()} for the synchronous request paths.
+     */
+    public void acquireBlocking() throws IOException, InterruptedException {
+        CompletableFuture<Void> permit = acquire();
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            permit.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Stops handing out tokens for {@code delayMs}, e.g. after the provider answered 429.
+     */
+    public synchronized void backOff(long delayMs) {
+        long now = System.nanoTime();
+        refill(now);
+        tokens = 0;
+        long resumeAt = now + delayMs * 1_000_000;
+        if (resumeAt - pausedUntil > 0) {
+            pausedUntil = resumeAt;
+        }
+        throttled++;
+        logger.warn("⏳ {} quota exceeded, pausing requests for {} ms", name, delayMs);
+        if (!waiters.isEmpty()) {
+            scheduleDrain(now);
+        }
+    }
+
+    /**
+     * Sends a request once a token is available, through {@code health}'s circuit breaker.
+     * A 429 response pauses the bucket for its Retry-After and queues the request again.
+     */
+    public <T> HttpResponse<T> send(ProviderHealth health, HttpClient client, HttpRequest request,
+                                    HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        return send(health, client, request, handler, 1);
+    }
+
+    /**
+     * {@link #send} for a request doing {@code work} units of work, see {@link ProviderHealth#getTimeout(double)}.
+     */
+    public <T> HttpResponse<T> send(ProviderHealth health, HttpClient client, HttpRequest request,
+                                    HttpResponse.BodyHandler<T> handler, double work)
+            throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            acquireBlocking();
+            HttpResponse<T> response = health.send(client, request, handler, work);
+            if (response.statusCode() != 429 || attempt >= maxRetries) {
+                return response;
+            }
+            backOff(retryAfterMs(response));
+        }
+    }
+
+    /**
+     * Async variant of {@link #send}. Cancelling the returned future cancels the wait or
+     * the request in flight.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(ProviderHealth health, HttpClient client,
+                                                            HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        return sendAsync(health, client, request, handler, 1);
+    }
+
+    /**
+     * {@link #sendAsync} for a request doing {@code work} units of work, see {@link ProviderHealth#getTimeout(double)}.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(ProviderHealth health, HttpClient client,
+                                                            HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                            double work) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        sendAttempt(health, client, request, handler, work, 0, result);
+        return result;
+    }
+
+    private <T> void sendAttempt(ProviderHealth health, HttpClient client, HttpRequest request,
+                                 HttpResponse.BodyHandler<T> handler, double work, int attempt,
+                                 CompletableFuture<HttpResponse<T>> result) {
+        CompletableFuture<Void> permit = acquire();
+        Futures.propagateCancel(result, permit);
+        permit.whenComplete((token, waitError) -> {
+            if (waitError != null) {
+                result.completeExceptionally(Futures.unwrap(waitError));
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<HttpResponse<T>> exchange = health.sendAsync(client, request, handler, work);
+            Futures.propagateCancel(result, exchange);
+            exchange.whenComplete((response, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(Futures.unwrap(error));
+                } else if (response.statusCode() == 429 && attempt < maxRetries && !result.isDone()) {
+                    backOff(retryAfterMs(response));
+                    sendAttempt(health, client, request, handler, work, attempt + 1, result);
+                } else {
+                    result.complete(response);
+                }
+            });
+        });
+    }
+
+    /**
+     * Reads Retry-After as seconds or an HTTP date; without one, waits for one token's worth of quota.
+     */
+    private long retryAfterMs(HttpResponse<?> response) {
+        long fallbackMs = Math.max(1000, 60_000 / requestsPerMinute);
+        Optional<String> header = response.headers().firstValue("Retry-After");
+        if (!header.isPresent()) {
+            return fallbackMs;
+        }
+        String value = header.get().trim();
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be a date
+        }
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt).toMillis());
+        } catch (DateTimeParseException e) {
+            logger.debug("Ignoring unparseable Retry-After '{}' from {}", value, name);
+            return fallbackMs;
+        }
+    }
+
+    private void refill(long now) {
+        long from = pausedUntil - lastRefill > 0 ? pausedUntil : lastRefill;
+        if (now - from > 0) {
+            tokens = Math.min(capacity, tokens + (now - from) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+
+    /**
+     * Wakes up {@link #drain()} when the next token is due. Caller holds the lock.
+     */
+    private void scheduleDrain(long now) {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        long waitNanos = Math.max(pausedUntil - now, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        Futures.schedule(this::drain, Math.max(1, (waitNanos + 999_999) / 1_000_000));
+    }
+
+    /**
+     * Releases waiters in arrival order for as many tokens as have refilled.
+     */
+    private void drain() {
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            long now = System.nanoTime();
+            refill(now);
+            while (now - pausedUntil >= 0 && tokens >= 1 && !waiters.isEmpty()) {
+                CompletableFuture<Void> waiter = waiters.poll();
+                if (waiter.isDone()) {
+                    continue; // cancelled while it waited, keeps its token
+                }
+                tokens -= 1;
+                granted++;
+                ready.add(waiter);
+            }
+            if (!waiters.isEmpty()) {
+                scheduleDrain(now);
+            }
+        }
+        // Outside the lock: completing runs the requests' continuations
+        for (CompletableFuture<Void> waiter : ready) {
+            waiter.complete(null);
+        }
+    }
+
+    public synchronized String getStats() {
+        return String.format("%s: %d/min, burst %.0f, granted: %d, delayed: %d, waiting: %d, 429s: %d",
+            name, requestsPerMinute, capacity, granted, delayed, waiters.size(), throttled);
+    }
+}
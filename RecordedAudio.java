@@ -0,0 +1,258 @@
+package com.bhojpurri;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * An utterance captured in memory as raw PCM.
+ * The samples are held as a list of fixed-size chunks exactly as they were read from
+ * the microphone, so they can be handed to the transcription upload without being
+ * copied into one large array or round-tripped through a WAV file on disk.
+ * The WAV archive copy is written in the background; {@link #getArchiveFuture()}
+ * completes once it is on disk.
+ */
+public class RecordedAudio {
+    public static final int WAV_HEADER_SIZE = 44;
+
+    private final AudioFormat format;
+    private final List<byte[]> chunks;
+    private final long pcmLength;
+    private final File archiveFile;
+    private final CompletableFuture<File> archiveFuture;
+    private volatile String contentHash;
+
+    RecordedAudio(AudioFormat format, List<byte[]> chunks, long pcmLength, File archiveFile) {
+        this(format, chunks, pcmLength, archiveFile, new CompletableFuture<>());
+    }
+
+    private RecordedAudio(AudioFormat format, List<byte[]> chunks, long pcmLength, File archiveFile,
+                          CompletableFuture<File> archiveFuture) {
+        this.format = format;
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.pcmLength = pcmLength;
+        this.archiveFile = archiveFile;
+        this.archiveFuture = archiveFuture;
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * PCM chunks in capture order. Every chunk is fully used; do not modify them.
+     */
+    public List<byte[]> getChunks() {
+        return chunks;
+    }
+
+    public long getFrameCount() {
+        return pcmLength / format.getFrameSize();
+    }
+
+    public long getPcmLength() {
+        return pcmLength;
+    }
+
+    /**
+     * Size of the audio as a WAV file (header plus PCM data).
+     */
+    public long getWavLength() {
+        return WAV_HEADER_SIZE + pcmLength;
+    }
+
+    public double getDurationSeconds() {
+        return pcmLength / (double) (format.getFrameSize() * format.getFrameRate());
+    }
+
+    /**
+     * Where the WAV copy of this recording is (or will be) archived.
+     */
+    public File getArchiveFile() {
+        return archiveFile;
+    }
+
+    /**
+     * Completes with the archive file once the background write has finished.
+     */
+    public CompletableFuture<File> getArchiveFuture() {
+        return archiveFuture;
+    }
+
+    /**
+     * SHA-256 of the format and PCM samples, computed once. Identical recordings (e.g. the
+     * same clip submitted twice) have the same hash wherever they are archived.
+     */
+    public String contentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(format.toString().getBytes(StandardCharsets.UTF_8));
+                for (byte[] chunk : chunks) {
+                    digest.update(chunk);
+                }
+                StringBuilder hex = new StringBuilder(64);
+                for (byte b : digest.digest()) {
+                    hex.append(String.format("%02x", b));
+                }
+                hash = hex.toString();
+                contentHash = hash;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Builds the canonical 44-byte RIFF/WAVE header for this recording's PCM data.
+     */
+    public byte[] wavHeader() {
+        int channels = format.getChannels();
+        int sampleRate = (int) format.getSampleRate();
+        int bitsPerSample = format.getSampleSizeInBits();
+        int blockAlign = format.getFrameSize();
+
+        ByteBuffer header = ByteBuffer.allocate(WAV_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(new byte[] {'R', 'I', 'F', 'F'});
+        header.putInt((int) (36 + pcmLength));
+        header.put(new byte[] {'W', 'A', 'V', 'E'});
+        header.put(new byte[] {'f', 'm', 't', ' '});
+        header.putInt(16);               // PCM fmt chunk size
+        header.putShort((short) 1);      // PCM
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitsPerSample);
+        header.put(new byte[] {'d', 'a', 't', 'a'});
+        header.putInt((int) pcmLength);
+        return header.array();
+    }
+
+    /**
+     * The recording as a complete WAV file: header followed by the PCM chunks.
+     * The returned list shares the PCM arrays, nothing is copied.
+     */
+    public List<byte[]> wavParts() {
+        List<byte[]> parts = new ArrayList<>(chunks.size() + 1);
+        parts.add(wavHeader());
+        parts.addAll(chunks);
+        return parts;
+    }
+
+    /**
+     * Streams the raw PCM without copying the chunks.
+     */
+    public InputStream openPcmStream() {
+        Enumeration<InputStream> streams = Collections.enumeration(
+            chunks.stream().map(ByteArrayInputStream::new).collect(Collectors.toList()));
+        return new SequenceInputStream(streams);
+    }
+
+    /**
+     * Reads one 16-bit little-endian mono sample. Relies on every chunk except the
+     * last having the same size, which the {@link Builder} guarantees.
+     */
+    short sampleAt(long frameIndex) {
+        long byteOffset = frameIndex * 2;
+        int chunkSize = chunks.get(0).length;
+        byte[] chunk = chunks.get((int) (byteOffset / chunkSize));
+        int pos = (int) (byteOffset % chunkSize);
+        return (short) ((chunk[pos] & 0xFF) | (chunk[pos + 1] << 8));
+    }
+
+    /**
+     * Copies a byte range of the PCM data into a builder, chunk by chunk.
+     */
+    void copyRange(long fromByte, long toByte, Builder out) {
+        long chunkStart = 0;
+        for (byte[] chunk : chunks) {
+            long chunkEnd = chunkStart + chunk.length;
+            long from = Math.max(fromByte, chunkStart);
+            long to = Math.min(toByte, chunkEnd);
+            if (from < to) {
+                out.write(chunk, (int) (from - chunkStart), (int) (to - from));
+            }
+            if (chunkEnd >= toByte) {
+                break;
+            }
+            chunkStart = chunkEnd;
+        }
+    }
+
+    void markArchived() {
+        archiveFuture.complete(archiveFile);
+    }
+
+    void markArchiveFailed(Throwable error) {
+        archiveFuture.completeExceptionally(error);
+    }
+
+    /**
+     * Accumulates PCM into fixed-size chunks as it is read from the line.
+     * Only the final, partially filled chunk is trimmed when the recording is built.
+     */
+    static class Builder {
+        private static final int CHUNK_SIZE = 64 * 1024;
+
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte[] current = new byte[CHUNK_SIZE];
+        private int currentPos = 0;
+        private long length = 0;
+
+        void write(byte[] data, int offset, int count) {
+            while (count > 0) {
+                int n = Math.min(count, current.length - currentPos);
+                System.arraycopy(data, offset, current, currentPos, n);
+                currentPos += n;
+                offset += n;
+                count -= n;
+                length += n;
+                if (currentPos == current.length) {
+                    chunks.add(current);
+                    current = new byte[CHUNK_SIZE];
+                    currentPos = 0;
+                }
+            }
+        }
+
+        long length() {
+            return length;
+        }
+
+        RecordedAudio build(AudioFormat format, File archiveFile) {
+            List<byte[]> all = new ArrayList<>(chunks);
+            if (currentPos > 0) {
+                byte[] last = new byte[currentPos];
+                System.arraycopy(current, 0, last, 0, currentPos);
+                all.add(last);
+            }
+            return new RecordedAudio(format, all, length, archiveFile);
+        }
+
+        /**
+         * Builds a processed version of {@code source} (e.g. resampled) that still
+         * refers to the source's archive file and archive future.
+         */
+        RecordedAudio buildDerived(AudioFormat format, RecordedAudio source) {
+            RecordedAudio built = build(format, source.archiveFile);
+            return new RecordedAudio(format, built.chunks, built.pcmLength, source.archiveFile, source.archiveFuture);
+        }
+    }
+}
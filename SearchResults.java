@@ -0,0 +1,75 @@
+package com.bhojpurri;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a translation history search, best matches first.
+ */
+public class SearchResults {
+
+    /**
+     * A matching translation and its FULLTEXT relevance score (higher is better).
+     */
+    public static class Hit {
+        private final TranslationRecord record;
+        private final double relevance;
+
+        public Hit(TranslationRecord record, double relevance) {
+            this.record = record;
+            this.relevance = relevance;
+        }
+
+        public TranslationRecord getRecord() {
+            return record;
+        }
+
+        public double getRelevance() {
+            return relevance;
+        }
+    }
+
+    private final String query;
+    private final List<Hit> hits;
+    private final int page;
+    private final int pageSize;
+    private final boolean hasMore;
+
+    public SearchResults(String query, List<Hit> hits, int page, int pageSize, boolean hasMore) {
+        this.query = query;
+        this.hits = Collections.unmodifiableList(hits);
+        this.page = page;
+        this.pageSize = pageSize;
+        this.hasMore = hasMore;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<Hit> getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The zero-based page number
+     */
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return true if another page of results follows this one
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public boolean isEmpty() {
+        return hits.isEmpty();
+    }
+}
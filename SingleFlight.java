@@ -0,0 +1,191 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces identical concurrent requests: while a call for a key is in flight, later
+ * callers with the same key wait for its result instead of sending their own request.
+ * Once the call completes the key is forgotten, so results are not cached here.
+ *
+ * Every caller gets its own future. Cancelling one only detaches that caller; the shared
+ * call is cancelled once every caller waiting on it has cancelled.
+ *
+ * @param <K> The request key, e.g. language + text or an audio hash
+ * @param <V> The result type
+ */
+public class SingleFlight<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    /**
+     * A blocking call for {@link #call}.
+     */
+    public interface Call<V> {
+        V call() throws IOException, InterruptedException;
+    }
+
+    /**
+     * One in-flight call and the callers waiting on it.
+     */
+    private static class Flight<V> {
+        final CompletableFuture<V> shared = new CompletableFuture<>();
+        int callers = 0; // guarded by the flights map
+    }
+
+    private final String name;
+    private final Map<K, Flight<V>> flights = new HashMap<>();
+    private long started = 0; // guarded by flights
+    private long joined = 0;  // guarded by flights
+
+    /**
+     * @param name What is being coalesced, used in logs, e.g. "translation"
+     */
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts {@code call} unless an identical one is already in flight, in which case its
+     * result is shared.
+     *
+     * @return A future for this caller; cancelling it does not affect other callers
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        Flight<V> flight;
+        boolean leader;
+        synchronized (flights) {
+            flight = flights.get(key);
+            leader = flight == null || flight.shared.isDone();
+            if (leader) {
+                flight = new Flight<>();
+                flights.put(key, flight);
+                started++;
+            } else {
+                joined++;
+                logger.info("🔗 Joining in-flight {} instead of sending a duplicate request", name);
+            }
+            flight.callers++;
+        }
+
+        CompletableFuture<V> caller = attach(key, flight);
+        if (leader) {
+            CompletableFuture<V> work;
+            try {
+                work = call.get();
+            } catch (RuntimeException e) {
+                work = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<V> shared = flight.shared;
+            Futures.propagateCancel(shared, work);
+            work.whenComplete((value, error) -> {
+                if (error != null) {
+                    shared.completeExceptionally(Futures.unwrap(error));
+                } else {
+                    shared.complete(value);
+                }
+            });
+        }
+        return caller;
+    }
+
+    /**
+     * Blocking variant of {@link #execute}: runs {@code call} on this thread unless an
+     * identical call is in flight, in which case this thread waits for its result.
+     */
+    public V call(K key, Call<V> call) throws IOException, InterruptedException {
+        Flight<V> flight;
+        boolean leader;
+        synchronized (flights) {
+            flight = flights.get(key);
+            leader = flight == null || flight.shared.isDone();
+            if (leader) {
+                flight = new Flight<>();
+                flights.put(key, flight);
+                started++;
+            } else {
+                joined++;
+                logger.info("🔗 Joining in-flight {} instead of sending a duplicate request", name);
+            }
+            // Blocking callers cannot cancel, so they keep the shared call alive for good
+            flight.callers++;
+        }
+        if (!leader) {
+            return await(flight.shared);
+        }
+
+        // Run the call here and hand the outcome to anyone who joined meanwhile
+        try {
+            V value = call.call();
+            flight.shared.complete(value);
+            return value;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            flight.shared.completeExceptionally(e);
+            throw e;
+        } finally {
+            forget(key, flight);
+        }
+    }
+
+    private CompletableFuture<V> attach(K key, Flight<V> flight) {
+        CompletableFuture<V> caller = new CompletableFuture<>();
+        flight.shared.whenComplete((value, error) -> {
+            forget(key, flight);
+            if (error != null) {
+                caller.completeExceptionally(Futures.unwrap(error));
+            } else {
+                caller.complete(value);
+            }
+        });
+        caller.whenComplete((value, error) -> {
+            if (!caller.isCancelled()) {
+                return;
+            }
+            boolean last;
+            synchronized (flights) {
+                last = --flight.callers == 0;
+            }
+            if (last) {
+                logger.debug("All callers of in-flight {} cancelled, cancelling it", name);
+                flight.shared.cancel(true);
+            }
+        });
+        return caller;
+    }
+
+    private void forget(K key, Flight<V> flight) {
+        synchronized (flights) {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Waits for a shared future, rethrowing its failure the way the blocking call would have.
+     */
+    private static <V> V await(CompletableFuture<V> shared) throws IOException, InterruptedException {
+        try {
+            return shared.get();
+        } catch (ExecutionException e) {
+            Throwable cause = Futures.unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    public String getStats() {
+        synchronized (flights) {
+            return String.format("%s: %d sent, %d coalesced, %d in flight", name, started, joined, flights.size());
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.bhojpurri;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -16,7 +19,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Handles audio recording from the microphone.
- * Records audio in WAV format for processing.
+ * Audio is captured into memory ({@link RecordedAudio}) so it can be uploaded straight
+ * away; the WAV copy in audio_recordings/ is written by a background archiver thread.
+ * 
+ * In always-armed mode ({@link #arm()}) the microphone line stays open and feeds a
+ * fixed-size pre-roll ring buffer, so a recording starts with the last few hundred
+ * milliseconds before the key press instead of waiting for the line to open.
  */
 public class SpeechRecorder {
     private static final Logger logger = LoggerFactory.getLogger(SpeechRecorder.class);
@@ -25,6 +33,9 @@ public class SpeechRecorder {
     private Thread recordingThread;
     private File outputFile;
     private volatile boolean isRecording = false;
+    private final Object recordingLock = new Object();
+    private RecordedAudio.Builder currentRecording; // guarded by recordingLock
+    private final ExecutorService archiveExecutor;
 
     // Audio format settings - 44.1kHz is more standard than 16kHz
     private static final float SAMPLE_RATE = 44100.0F;
@@ -32,6 +43,22 @@ public class SpeechRecorder {
     private static final int CHANNELS = 1; // Mono
     private static final boolean SIGNED = true;
     private static final boolean BIG_ENDIAN = false; // Little-endian for better compatibility
+    private static final int DEFAULT_PREROLL_MS = 300;
+    
+    // Always-armed capture state
+    private final int prerollMs;
+    private volatile boolean armed = false;
+    private Thread captureThread;
+    private PcmRingBuffer preRoll;
+    private byte[] preRollSnapshot;
+    
+    // Voice activity callbacks (invoked on the capture thread)
+    private VoiceActivityDetector vad; // only touched on the capture thread
+    private volatile boolean resetVad = false;
+    private volatile long autoStopSilenceMs = 0;
+    private volatile Runnable onSpeechStart;
+    private volatile Runnable onAutoStop;
+    private volatile boolean autoStopFired = false;
 
     public SpeechRecorder() {
         // Create output directory if it doesn't exist
@@ -43,6 +70,154 @@ public class SpeechRecorder {
         // Generate unique filename with timestamp
         String timestamp = String.valueOf(System.currentTimeMillis());
         outputFile = new File(outputDir, "recording_" + timestamp + ".wav");
+        prerollMs = Math.max(0, EnvLoader.getInt("RECORDER_PREROLL_MS", DEFAULT_PREROLL_MS));
+        archiveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recording-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the microphone and keeps it capturing into the pre-roll ring buffer.
+     * Subsequent {@link #startRecording()} calls start instantly and include the
+     * configured pre-roll (RECORDER_PREROLL_MS, default 300 ms).
+     */
+    public void arm() {
+        if (armed) {
+            return;
+        }
+        if (isRecording) {
+            logger.warn("Cannot arm microphone while a recording is in progress");
+            return;
+        }
+
+        try {
+            AudioFormat format = createFormat();
+            line = openLine(format);
+            line.start();
+
+            int frameSize = format.getFrameSize();
+            int prerollBytes = (int) (format.getFrameRate() * prerollMs / 1000) * frameSize;
+            preRoll = new PcmRingBuffer(Math.max(frameSize, prerollBytes));
+            preRollSnapshot = new byte[preRoll.capacity()];
+            armed = true;
+
+            captureThread = new Thread(this::captureLoop, "mic-capture");
+            captureThread.setDaemon(true);
+            captureThread.start();
+            logger.info("Microphone armed with {} ms pre-roll", prerollMs);
+
+        } catch (LineUnavailableException e) {
+            logger.error("Microphone line unavailable", e);
+            throw new RuntimeException("Cannot access microphone: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the always-open microphone line.
+     */
+    public void disarm() {
+        if (!armed) {
+            return;
+        }
+        armed = false;
+        if (line != null) {
+            line.stop();
+            line.close();
+        }
+        try {
+            if (captureThread != null) {
+                captureThread.join(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (recordingLock) {
+            currentRecording = null;
+            preRoll.clear();
+        }
+        isRecording = false;
+        logger.info("Microphone disarmed");
+    }
+
+    /**
+     * Reads the open line continuously. Every chunk goes into the pre-roll ring;
+     * while a recording is active it is also appended to the recording.
+     */
+    private void captureLoop() {
+        AudioFormat format = line.getFormat();
+        // ~20 ms per read keeps the latency between key press and capture low
+        byte[] chunk = new byte[Math.max(1, (int) (format.getFrameRate() / 50)) * format.getFrameSize()];
+        while (armed) {
+            int read = line.read(chunk, 0, chunk.length);
+            if (read <= 0) {
+                continue;
+            }
+            synchronized (recordingLock) {
+                preRoll.write(chunk, 0, read);
+                if (currentRecording != null) {
+                    currentRecording.write(chunk, 0, read);
+                }
+            }
+            detectVoiceActivity(format, chunk, read);
+        }
+    }
+
+    /**
+     * Enables voice activity callbacks.
+     * {@code onSpeechStart} fires when speech begins while the armed line is idle (for
+     * hands-free use); {@code onAutoStop} fires once per recording after speech has been
+     * followed by {@code autoStopSilenceMs} of silence. Both run on the capture thread.
+     * 
+     * @param autoStopSilenceMs Silence that ends a recording, 0 to disable auto-stop
+     * @param onSpeechStart Callback for speech onset, or null
+     * @param onAutoStop Callback for end of speech, or null
+     */
+    public void setVoiceActivityCallbacks(long autoStopSilenceMs, Runnable onSpeechStart, Runnable onAutoStop) {
+        this.autoStopSilenceMs = autoStopSilenceMs;
+        this.onSpeechStart = onSpeechStart;
+        this.onAutoStop = onAutoStop;
+    }
+
+    /**
+     * Runs the VAD over a captured chunk and fires the configured callbacks.
+     */
+    private void detectVoiceActivity(AudioFormat format, byte[] chunk, int length) {
+        Runnable speechStart = onSpeechStart;
+        Runnable autoStop = onAutoStop;
+        if (speechStart == null && autoStop == null) {
+            return;
+        }
+        if (vad == null) {
+            vad = new VoiceActivityDetector(format);
+        }
+        if (resetVad) {
+            resetVad = false;
+            vad.reset();
+        }
+
+        boolean wasSpeaking = vad.isSpeaking();
+        vad.accept(chunk, 0, length);
+
+        if (!isRecording) {
+            if (!wasSpeaking && vad.isSpeaking() && speechStart != null) {
+                speechStart.run();
+            }
+        } else if (!autoStopFired && autoStop != null && autoStopSilenceMs > 0
+                && vad.getTrailingSilenceMs() >= autoStopSilenceMs) {
+            autoStopFired = true;
+            logger.info("VAD detected {} ms of silence - stopping recording", vad.getTrailingSilenceMs());
+            autoStop.run();
+        }
+    }
+
+    /**
+     * Checks if the microphone is held open in always-armed mode.
+     * @return true if armed, false otherwise
+     */
+    public boolean isArmed() {
+        return armed;
     }
 
     /**
@@ -54,44 +229,52 @@ public class SpeechRecorder {
             return;
         }
 
-        try {
-            // Define audio format
-            AudioFormat format = new AudioFormat(
-                SAMPLE_RATE, 
-                SAMPLE_SIZE_BITS, 
-                CHANNELS, 
-                SIGNED, 
-                BIG_ENDIAN
-            );
-
-            // Get and open the line
-            DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
-            
-            if (!AudioSystem.isLineSupported(info)) {
-                throw new LineUnavailableException("Microphone not supported");
+        resetVad = true;
+        autoStopFired = false;
+
+        if (armed) {
+            // Line is already running - seed the recording with the pre-roll and go
+            synchronized (recordingLock) {
+                int preRollBytes = preRoll.readLatest(preRollSnapshot, preRollSnapshot.length);
+                currentRecording = new RecordedAudio.Builder();
+                currentRecording.write(preRollSnapshot, 0, preRollBytes);
             }
+            isRecording = true;
+            logger.info("Recording started (armed, {} ms pre-roll) to file: {}", prerollMs, outputFile.getAbsolutePath());
+            return;
+        }
 
-            line = (TargetDataLine) AudioSystem.getLine(info);
-            line.open(format);
+        try {
+            line = openLine(createFormat());
             line.start();
             
+            synchronized (recordingLock) {
+                currentRecording = new RecordedAudio.Builder();
+            }
             isRecording = true;
             logger.info("Recording started to file: {}", outputFile.getAbsolutePath());
 
-            // Start recording in a separate thread
+            // Capture into memory in a separate thread until the line is stopped
+            final TargetDataLine recordingLine = line;
             recordingThread = new Thread(() -> {
-                try (AudioInputStream audioInputStream = new AudioInputStream(line)) {
-                    AudioSystem.write(
-                        audioInputStream, 
-                        AudioFileFormat.Type.WAVE, 
-                        outputFile
-                    );
-                } catch (IOException e) {
-                    if (isRecording) {
-                        logger.error("Error during recording", e);
+                AudioFormat format = recordingLine.getFormat();
+                byte[] chunk = new byte[Math.max(1, (int) (format.getFrameRate() / 50)) * format.getFrameSize()];
+                while (true) {
+                    int read = recordingLine.read(chunk, 0, chunk.length);
+                    if (read > 0) {
+                        synchronized (recordingLock) {
+                            if (currentRecording != null) {
+                                currentRecording.write(chunk, 0, read);
+                            }
+                        }
+                        detectVoiceActivity(format, chunk, read);
+                    }
+                    // After stop() the line returns what it still has buffered, then nothing
+                    if (!isRecording && read < chunk.length) {
+                        break;
                     }
                 }
-            });
+            }, "mic-recording");
             recordingThread.start();
 
         } catch (LineUnavailableException e) {
@@ -101,30 +284,92 @@ public class SpeechRecorder {
     }
 
     /**
-     * Stops recording and returns the path to the recorded file.
-     * @return Absolute path to the recorded WAV file
+     * Stops recording and returns the captured audio in memory.
+     * The WAV archive is written asynchronously; see {@link RecordedAudio#getArchiveFuture()}.
+     * @return The recorded audio, or null if nothing was captured
      */
-    public String stopRecording() {
+    public RecordedAudio stopRecordingToMemory() {
         if (!isRecording) {
             logger.warn("No recording in progress to stop");
             return null;
         }
 
+        File archiveFile = outputFile;
+        // Generate new filename for next recording
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        outputFile = new File("audio_recordings", "recording_" + timestamp + ".wav");
+
         try {
             isRecording = false;
             
-            if (line != null) {
-                line.stop();
-                line.close();
-                logger.info("Recording stopped");
+            if (armed) {
+                logger.info("Recording stopped (line stays armed)");
+            } else {
+                if (line != null) {
+                    line.stop();
+                }
+                if (recordingThread != null) {
+                    recordingThread.join(500); // Let the capture thread collect the buffered tail
+                }
+                if (line != null) {
+                    line.close();
+                    logger.info("Recording stopped");
+                }
+                if (recordingThread != null) {
+                    recordingThread.join(2000); // Wait up to 2 seconds for thread to finish
+                }
+            }
+
+            RecordedAudio audio;
+            synchronized (recordingLock) {
+                audio = currentRecording != null ? currentRecording.build(line.getFormat(), archiveFile) : null;
+                currentRecording = null;
             }
 
-            if (recordingThread != null) {
-                recordingThread.join(2000); // Wait up to 2 seconds for thread to finish
+            if (audio == null || audio.getPcmLength() == 0) {
+                logger.error("Recording was empty");
+                return null;
             }
 
-            // Verify file was created
-            if (outputFile.exists() && outputFile.length() > 0) {
+            logger.info("Recording captured in memory: {} bytes ({} s)",
+                audio.getWavLength(), String.format("%.1f", audio.getDurationSeconds()));
+            archiveAsync(audio);
+            return audio;
+
+        } catch (InterruptedException e) {
+            logger.error("Recording thread interrupted", e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Stops recording and returns the path to the recorded file.
+     * Waits for the WAV archive to be written before returning.
+     * @return Absolute path to the recorded WAV file
+     */
+    public String stopRecording() {
+        RecordedAudio audio = stopRecordingToMemory();
+        if (audio == null) {
+            return null;
+        }
+        try {
+            audio.getArchiveFuture().join();
+            return audio.getArchiveFile().getAbsolutePath();
+        } catch (CompletionException e) {
+            logger.error("Error saving recording", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the WAV copy of a recording on the archiver thread, off the critical path.
+     */
+    private void archiveAsync(RecordedAudio audio) {
+        archiveExecutor.execute(() -> {
+            File outputFile = audio.getArchiveFile();
+            try {
+                writeWav(audio, outputFile);
                 logger.info("Recording saved successfully: {} ({} bytes)", 
                     outputFile.getAbsolutePath(), outputFile.length());
                 
@@ -132,23 +377,41 @@ public class SpeechRecorder {
                 System.out.println("🎤 Recording saved at: " + outputFile.getAbsolutePath());
                 System.out.println("   File size: " + outputFile.length() + " bytes");
                 System.out.println("   Play it with: start " + outputFile.getAbsolutePath());
-                
-                return outputFile.getAbsolutePath();
-            } else {
-                throw new IOException("Recording file was not created or is empty");
+                audio.markArchived();
+            } catch (IOException e) {
+                logger.error("Error saving recording", e);
+                audio.markArchiveFailed(e);
             }
+        });
+    }
 
-        } catch (InterruptedException e) {
-            logger.error("Recording thread interrupted", e);
-            Thread.currentThread().interrupt();
-            return null;
-        } catch (IOException e) {
-            logger.error("Error saving recording", e);
-            return null;
-        } finally {
-            // Generate new filename for next recording
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            outputFile = new File("audio_recordings", "recording_" + timestamp + ".wav");
+    private static AudioFormat createFormat() {
+        return new AudioFormat(
+            SAMPLE_RATE, 
+            SAMPLE_SIZE_BITS, 
+            CHANNELS, 
+            SIGNED, 
+            BIG_ENDIAN
+        );
+    }
+
+    private static TargetDataLine openLine(AudioFormat format) throws LineUnavailableException {
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+        
+        if (!AudioSystem.isLineSupported(info)) {
+            throw new LineUnavailableException("Microphone not supported");
+        }
+
+        TargetDataLine targetLine = (TargetDataLine) AudioSystem.getLine(info);
+        targetLine.open(format);
+        return targetLine;
+    }
+
+    private static void writeWav(RecordedAudio audio, File file) throws IOException {
+        AudioFormat format = audio.getFormat();
+        long frames = audio.getPcmLength() / format.getFrameSize();
+        try (AudioInputStream audioInputStream = new AudioInputStream(audio.openPcmStream(), format, frames)) {
+            AudioSystem.write(audioInputStream, AudioFileFormat.Type.WAVE, file);
         }
     }
 
@@ -0,0 +1,176 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed cache for synthesized TTS audio.
+ * Each clip is stored as {@code <sha256>.mp3} where the hash covers the text, language,
+ * provider, voice id and model, so an identical request never hits the network twice.
+ * The directory is kept under TTS_CACHE_MAX_MB by evicting least recently played files.
+ */
+public class TTSCache {
+    private static final Logger logger = LoggerFactory.getLogger(TTSCache.class);
+
+    private static final long DEFAULT_MAX_MB = 200;
+
+    private final Path cacheDirectory;
+    private final long maxBytes;
+    private final AtomicLong currentBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong downloadSequence = new AtomicLong();
+
+    public TTSCache(Path cacheDirectory) {
+        this(cacheDirectory, EnvLoader.getLong("TTS_CACHE_MAX_MB", DEFAULT_MAX_MB) * 1024 * 1024);
+    }
+
+    public TTSCache(Path cacheDirectory, long maxBytes) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxBytes = maxBytes;
+        try {
+            if (!Files.exists(cacheDirectory)) {
+                Files.createDirectories(cacheDirectory);
+                System.out.println("📁 Created directory: " + cacheDirectory.toAbsolutePath());
+            }
+            // The old single-slot file is never read again
+            Files.deleteIfExists(cacheDirectory.resolve("tts_output.mp3"));
+            long total = 0;
+            for (Path file : listEntries()) {
+                total += Files.size(file);
+            }
+            currentBytes.set(total);
+        } catch (IOException e) {
+            logger.error("Failed to initialize TTS cache directory", e);
+        }
+        logger.info("TTS cache ready at {} ({} / {} bytes used)", cacheDirectory, currentBytes.get(), maxBytes);
+    }
+
+    /**
+     * Computes the cache key for a synthesis request.
+     */
+    public static String key(String text, String languageCode, String provider, String voiceId, String model) {
+        return TranslationCache.hash(String.join("\u0000", provider, voiceId, model, languageCode, text));
+    }
+
+    /**
+     * Returns the cached clip for the first key that has one, or null on a miss.
+     * The whole lookup counts as one hit or one miss, however many keys are tried.
+     * A hit refreshes the file's modification time so it counts as recently used.
+     */
+    public Path lookup(String... keys) {
+        for (String key : keys) {
+            Path file = pathFor(key);
+            try {
+                if (Files.exists(file) && Files.size(file) > 0) {
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                    hits.incrementAndGet();
+                    logger.info("TTS cache hit: {}", file.getFileName());
+                    return file;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read TTS cache entry {}: {}", file, e.getMessage());
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns a temporary path that a download can be written to before {@link #commit}.
+     * Each call gets its own file, so concurrent async downloads of one key never collide.
+     */
+    public Path tempFileFor(String key) {
+        return cacheDirectory.resolve(key + "." + downloadSequence.incrementAndGet() + ".part");
+    }
+
+    /**
+     * Moves a completed download into the cache and evicts old clips if over budget.
+     *
+     * @return The final cached file path
+     */
+    public Path commit(String key, Path tempFile) throws IOException {
+        Path file = pathFor(key);
+        long previous = Files.exists(file) ? Files.size(file) : 0;
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        currentBytes.addAndGet(Files.size(file) - previous);
+        if (currentBytes.get() > maxBytes) {
+            evict(file);
+        }
+        return file;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSizeBytes() {
+        return currentBytes.get();
+    }
+
+    public String getStats() {
+        return String.format("hits: %d, misses: %d, size: %d bytes", hits.get(), misses.get(), currentBytes.get());
+    }
+
+    /**
+     * Deletes least recently used clips until the cache fits its byte budget.
+     * The clip that was just written is never evicted.
+     */
+    private synchronized void evict(Path keep) {
+        try {
+            List<Path> files = new ArrayList<>(listEntries());
+            files.sort(Comparator.comparingLong(path -> {
+                try {
+                    return Files.getLastModifiedTime(path).toMillis();
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }));
+            long total = 0;
+            for (Path file : files) {
+                total += Files.size(file);
+            }
+            for (Path file : files) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                if (file.equals(keep)) {
+                    continue;
+                }
+                long size = Files.size(file);
+                Files.deleteIfExists(file);
+                total -= size;
+                logger.debug("Evicted TTS cache file: {}", file);
+            }
+            currentBytes.set(total);
+        } catch (IOException e) {
+            logger.warn("Error during TTS cache eviction", e);
+        }
+    }
+
+    private Path pathFor(String key) {
+        return cacheDirectory.resolve(key + ".mp3");
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (Stream<Path> stream = Files.list(cacheDirectory)) {
+            return stream.filter(path -> path.toString().endsWith(".mp3")).collect(Collectors.toList());
+        }
+    }
+}
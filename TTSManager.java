@@ -1,14 +1,34 @@
 package com.bhojpurri;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -19,6 +39,8 @@ import org.slf4j.LoggerFactory;
  */
 public class TTSManager {
     private static final Logger logger = LoggerFactory.getLogger(TTSManager.class);
+    // Marks a call's step reference once the call is cancelled, see track()
+    private static final CompletableFuture<?> STOPPED = new CompletableFuture<>();
     
     // ElevenLabs API Configuration (High Quality TTS)
     // Get your FREE API key from: https://elevenlabs.io/
@@ -37,10 +59,39 @@ public class TTSManager {
     
     // Using a multilingual voice for better Bhojpuri/Hindi pronunciation
     private static final String DEFAULT_VOICE_ID = VOICE_ID_BELLA;
+    private static final String ELEVENLABS_MODEL_ID = "eleven_multilingual_v2"; // Best for non-English languages
+    
+    // Provider names used in TTS cache keys
+    private static final String PROVIDER_ELEVENLABS = "elevenlabs";
+    private static final String PROVIDER_GOOGLE = "google";
+    private static final String GOOGLE_VOICE_ID = "default";
+    private static final String GOOGLE_MODEL_ID = "translate_tts";
     
     private final HttpClient httpClient;
     private final AudioPlayer audioPlayer;
     private final Path outputDirectory;
+    private final TTSCache ttsCache;
+    private final boolean streamingEnabled;
+    private final ExecutorService downloadExecutor; // saves winning hedged responses when streaming is off
+    
+    // Hedged synthesis: Google is raced against ElevenLabs once ElevenLabs is slower than usual
+    private final boolean hedgingEnabled;
+    private final long defaultHedgeDelayMs;
+    private final long[] elevenLabsLatencies = new long[HEDGE_LATENCY_WINDOW]; // ms to first valid response
+    private int elevenLabsLatencyCount = 0; // guarded by elevenLabsLatencies
+    private final Map<String, AtomicLong> hedgeWins = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> hedgeLosses = new ConcurrentHashMap<>();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    
+    // Circuit breakers with adaptive timeouts; an open circuit skips straight to the fallback
+    private final ProviderHealth elevenLabsHealth = new ProviderHealth("ElevenLabs", java.time.Duration.ofSeconds(30));
+    private final ProviderHealth googleHealth = new ProviderHealth("Google TTS", java.time.Duration.ofSeconds(30));
+    
+    // The same phrase requested again while it is being synthesized waits for that file instead
+    // of sending its own request; every caller still plays the audio itself
+    private final SingleFlight<String, String> syntheses = new SingleFlight<>("speech synthesis");
+    private static final int HEDGE_LATENCY_WINDOW = 50;
+    private static final int HEDGE_MIN_SAMPLES = 10;
     
     /**
      * Maps language codes to Google TTS supported codes
@@ -79,6 +130,15 @@ public class TTSManager {
         } catch (IOException e) {
             logger.error("Failed to create TTS output directory", e);
         }
+        this.ttsCache = new TTSCache(outputDirectory);
+        this.streamingEnabled = !"false".equalsIgnoreCase(EnvLoader.get("TTS_STREAMING", "true"));
+        this.hedgingEnabled = !"false".equalsIgnoreCase(EnvLoader.get("TTS_HEDGING", "true"));
+        this.defaultHedgeDelayMs = EnvLoader.getLong("TTS_HEDGE_DELAY_MS", 1500);
+        this.downloadExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "tts-download");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -97,20 +157,56 @@ public class TTSManager {
      * @return Path to the generated TTS audio file, or null if failed
      */
     public String speak(String text, String languageCode) throws IOException, InterruptedException {
+        if (hedgingEnabled && isElevenLabsConfigured()) {
+            // Racing two providers needs the async machinery; just wait for it here
+            CompletableFuture<String> speech = speakAsync(text, languageCode);
+            try {
+                return speech.get();
+            } catch (InterruptedException e) {
+                speech.cancel(true);
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = Futures.unwrap(e);
+                throw cause instanceof IOException ? (IOException) cause
+                    : new IOException("TTS conversion failed: " + cause.getMessage(), cause);
+            }
+        }
         if (text == null || text.trim().isEmpty()) {
             System.out.println("⚠️ Empty text provided for TTS");
             return null;
         }
-
         System.out.println("\n🔊 Starting TTS for: " + text + " (Language: " + languageCode + ")");
         logger.info("Converting text to speech: {} in language: {}", text, languageCode);
 
+        // Replay a previously synthesized clip if we have one - no network call needed
+        String cachedFilePath = playFromCache(text, languageCode);
+        if (cachedFilePath != null) {
+            return cachedFilePath;
+        }
+
+        boolean[] synthesizedHere = {false};
+        String path = syntheses.call(speechKey(text, languageCode), () -> {
+            synthesizedHere[0] = true;
+            return speakSequentially(text, languageCode);
+        });
+        if (!synthesizedHere[0]) {
+            // Another caller synthesized (and played) it; play the file for this one too
+            System.out.println("♻️ Playing audio synthesized for an identical request");
+            path = playOutput(Paths.get(path));
+        }
+        return path;
+    }
+
+    /**
+     * The blocking ElevenLabs-then-Google path used when hedging is off.
+     */
+    private String speakSequentially(String text, String languageCode) throws IOException, InterruptedException {
         boolean success = false;
         Exception lastException = null;
         String generatedFilePath = null;
 
         // Try ElevenLabs TTS first (high quality)
-        if (!ELEVENLABS_API_KEY.equals("YOUR_ELEVENLABS_API_KEY_HERE")) {
+        if (isElevenLabsConfigured()) {
             System.out.println("🎙️ Trying ElevenLabs TTS (Premium Quality)...");
             logger.info("Trying ElevenLabs TTS");
             
@@ -155,83 +251,409 @@ public class TTSManager {
     }
 
     /**
-     * ElevenLabs TTS - Premium quality, natural-sounding voices.
-     * Free tier: 10,000 characters/month
-     * Supports multilingual voices perfect for Hindi/Bhojpuri
-     * @param languageCode Language code (not directly used but logged for tracking)
+     * Non-blocking variant of {@link #speak(String, String)}: cached clips are replayed,
+     * otherwise ElevenLabs is tried and Google TTS used as the fallback. Requests go out
+     * with {@code sendAsync} and playback runs on the audio thread, so the caller's thread
+     * is never held. A phrase that is already being synthesized shares that request: this
+     * caller waits for its file and then plays it. Cancelling the returned future stops this
+     * caller's request and playback; callers that were waiting for it send their own.
+     * @param text The text to convert to speech
+     * @param languageCode The language code (e.g., "hi" for Hindi, "es" for Spanish, "fr" for French)
+     * @return A future completed with the path of the played audio file, or null for empty text
      */
-    private String useElevenLabsTTS(String text, String languageCode) throws IOException, InterruptedException {
-        Path outputFile = outputDirectory.resolve("tts_output.mp3");
+    public CompletableFuture<String> speakAsync(String text, String languageCode) {
+        if (text == null || text.trim().isEmpty()) {
+            System.out.println("⚠️ Empty text provided for TTS");
+            return CompletableFuture.completedFuture(null);
+        }
+        System.out.println("\n🔊 Starting TTS for: " + text + " (Language: " + languageCode + ")");
+        logger.info("Converting text to speech asynchronously: {} in language: {}", text, languageCode);
 
-        // Delete old file first to prevent accumulation
-        try {
-            if (Files.exists(outputFile)) {
-                Files.delete(outputFile);
-                System.out.println("   🗑️ Deleted old TTS file to prevent accumulation");
-                logger.info("Deleted old TTS file: {}", outputFile);
+        Path cached = findCached(text, languageCode);
+        if (cached != null) {
+            System.out.println("♻️ Playing cached TTS audio (no API call)");
+            return startSpeechAsync(text, languageCode, cached);
+        }
+
+        // The first caller synthesizes and plays (streaming) as usual; callers joining it
+        // get the cached file once it is committed and play that themselves
+        AtomicReference<CompletableFuture<String>> ownSpeech = new AtomicReference<>();
+        CompletableFuture<String> synthesized = syntheses.execute(speechKey(text, languageCode), () -> {
+            CompletableFuture<String> speech = startSpeechAsync(text, languageCode, null);
+            ownSpeech.set(speech);
+            return speech;
+        });
+        CompletableFuture<String> speech = ownSpeech.get();
+        if (speech != null) {
+            return speech;
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> playback = new AtomicReference<>();
+        synthesized.whenComplete((path, error) -> {
+            CompletableFuture<String> next;
+            if (error == null) {
+                System.out.println("♻️ Playing audio synthesized for an identical request");
+                next = startSpeechAsync(text, languageCode, Paths.get(path));
+            } else if (Futures.unwrap(error) instanceof CancellationException && !result.isDone()) {
+                // The caller synthesizing it gave up before the file was saved; start over
+                next = speakAsync(text, languageCode);
+            } else {
+                result.completeExceptionally(Futures.unwrap(error));
+                return;
             }
-        } catch (IOException e) {
-            logger.warn("Could not delete old TTS file: {}", e.getMessage());
+            track(playback, next);
+            if (result.isCancelled()) {
+                next.cancel(true);
+            }
+            next.whenComplete((nextPath, nextError) -> {
+                if (nextError == null) {
+                    result.complete(nextPath);
+                } else {
+                    result.completeExceptionally(Futures.unwrap(nextError));
+                }
+            });
+        });
+        result.whenComplete((path, error) -> {
+            if (result.isCancelled()) {
+                synthesized.cancel(true);
+                cancelSteps(playback);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Plays {@code cached} if given, synthesizing again should that fail, and otherwise
+     * synthesizes and plays the text.
+     */
+    private CompletableFuture<String> startSpeechAsync(String text, String languageCode, Path cached) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> currentStep = new AtomicReference<>();
+
+        CompletableFuture<String> attempt;
+        if (cached != null) {
+            attempt = track(currentStep, audioPlayer.playAsync(cached.toString()))
+                .thenApply(ignored -> cached.toAbsolutePath().toString())
+                .handle((path, error) -> {
+                    if (error == null || result.isDone()) {
+                        return error == null ? CompletableFuture.completedFuture(path)
+                                             : CompletableFuture.<String>failedFuture(error);
+                    }
+                    logger.warn("Cached TTS playback failed, synthesizing again: {}", error.getMessage());
+                    return synthesizeAsync(text, languageCode, result, currentStep);
+                })
+                .thenCompose(future -> future);
+        } else {
+            attempt = synthesizeAsync(text, languageCode, result, currentStep);
         }
 
-        try {
-            String endpoint = ELEVENLABS_ENDPOINT + DEFAULT_VOICE_ID;
-            
-            // Request body for ElevenLabs
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("text", text);
-            requestBody.put("model_id", "eleven_multilingual_v2"); // Best for non-English languages
-            
-            // Voice settings for natural speech
-            JSONObject voiceSettings = new JSONObject();
-            voiceSettings.put("stability", 0.5);      // 0-1, higher = more stable but less expressive
-            voiceSettings.put("similarity_boost", 0.75); // 0-1, higher = closer to original voice
-            requestBody.put("voice_settings", voiceSettings);
-
-            System.out.println("   ElevenLabs API URL: " + endpoint);
-            System.out.println("   Voice: " + DEFAULT_VOICE_ID + " (Bella - Clear Female, Language: " + languageCode + ")");
-            logger.info("Using ElevenLabs TTS with voice ID: {} for language: {}", DEFAULT_VOICE_ID, languageCode);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(endpoint))
-                .header("xi-api-key", ELEVENLABS_API_KEY)
-                .header("Content-Type", "application/json")
-                .header("Accept", "audio/mpeg")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
-                .timeout(java.time.Duration.ofSeconds(30))
-                .build();
-
-            HttpResponse<Path> response = httpClient.send(
-                request, 
-                HttpResponse.BodyHandlers.ofFile(outputFile)
-            );
-
-            if (response.statusCode() == 200 && Files.exists(outputFile) && Files.size(outputFile) > 0) {
-                System.out.println("   File size: " + Files.size(outputFile) + " bytes");
-                System.out.println("   Saved to: " + outputFile.toAbsolutePath());
-                System.out.println("   Playing audio...");
-                audioPlayer.play(outputFile.toString());
-                System.out.println("   ✅ Playback completed");
-                return outputFile.toAbsolutePath().toString();
+        attempt.whenComplete((path, error) -> {
+            if (error == null) {
+                result.complete(path);
             } else {
-                String errorMsg = "ElevenLabs TTS failed with status: " + response.statusCode();
-                if (Files.exists(outputFile)) {
-                    try {
-                        String errorBody = Files.readString(outputFile);
-                        System.out.println("   Error response: " + errorBody);
-                        errorMsg += " - " + errorBody;
-                    } catch (Exception ignored) {}
+                result.completeExceptionally(Futures.unwrap(error));
+            }
+        });
+        result.whenComplete((path, error) -> {
+            if (result.isCancelled()) {
+                // Only this call's own steps; other speech on the shared player keeps playing
+                cancelSteps(currentStep);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * ElevenLabs first, then Google, without blocking. No fallback is attempted once
+     * {@code result} has been cancelled.
+     */
+    private CompletableFuture<String> synthesizeAsync(String text, String languageCode, CompletableFuture<String> result,
+                                                      AtomicReference<CompletableFuture<?>> currentStep) {
+        if (hedgingEnabled && isElevenLabsConfigured()) {
+            return hedgedSynthesizeAsync(text, languageCode, result, currentStep);
+        }
+        CompletableFuture<String> premium;
+        if (isElevenLabsConfigured()) {
+            System.out.println("🎙️ Trying ElevenLabs TTS (Premium Quality)...");
+            premium = fetchAndPlayAsync(buildElevenLabsRequest(text, languageCode),
+                elevenLabsCacheKey(text, languageCode), "ElevenLabs", currentStep);
+        } else {
+            System.out.println("⚠️ ElevenLabs API key not set - skipping premium TTS");
+            premium = CompletableFuture.failedFuture(new IOException("ElevenLabs API key not configured"));
+        }
+
+        return premium.handle((path, error) -> {
+            if (error == null) {
+                System.out.println("✅ ElevenLabs TTS successful!");
+                return CompletableFuture.completedFuture(path);
+            }
+            if (result.isDone()) {
+                return CompletableFuture.<String>failedFuture(error);
+            }
+            System.out.println("⚠️ ElevenLabs TTS failed: " + Futures.unwrap(error).getMessage());
+            System.out.println("🔄 Using FREE Google TTS fallback...");
+            logger.info("Falling back to Google TTS");
+            return fetchAndPlayAsync(buildGoogleRequest(text, languageCode),
+                    googleCacheKey(text, languageCode), "Google", currentStep)
+                .handle((googlePath, googleError) -> {
+                    if (googleError != null) {
+                        Throwable cause = Futures.unwrap(googleError);
+                        System.out.println("❌ All TTS methods failed!");
+                        logger.error("All TTS methods failed", cause);
+                        throw new CompletionException(new IOException("TTS conversion failed: " + cause.getMessage(), cause));
+                    }
+                    System.out.println("✅ Google TTS successful!");
+                    return googlePath;
+                });
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * A provider request taking part in a hedged race.
+     */
+    private static class Attempt {
+        final String provider;
+        final String displayName;
+        final String cacheKey;
+        final long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> response;
+
+        Attempt(String provider, String displayName, String cacheKey) {
+            this.provider = provider;
+            this.displayName = displayName;
+            this.cacheKey = cacheKey;
+        }
+    }
+
+    /**
+     * Hedged synthesis: ElevenLabs starts first; if it has not answered within the hedge
+     * delay (p95 of its recent latency, or TTS_HEDGE_DELAY_MS until enough samples exist),
+     * or fails before that, Google is requested in parallel. The first valid response is
+     * played and the other request is cancelled.
+     */
+    private CompletableFuture<String> hedgedSynthesizeAsync(String text, String languageCode, CompletableFuture<String> result,
+                                                            AtomicReference<CompletableFuture<?>> currentStep) {
+        CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        List<Attempt> started = new ArrayList<>(2); // guarded by itself
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Attempt> backup = new AtomicReference<>();
+        track(currentStep, winner);
+
+        Runnable startGoogle = () -> {
+            Attempt google = new Attempt(PROVIDER_GOOGLE, "Google", googleCacheKey(text, languageCode));
+            if (winner.isDone() || result.isDone() || !backup.compareAndSet(null, google)) {
+                return;
+            }
+            hedgesFired.incrementAndGet();
+            System.out.println("🏁 Racing FREE Google TTS against ElevenLabs...");
+            logger.info("Hedging TTS request with Google");
+            launchAttempt(google, buildGoogleRequest(text, languageCode), winner, started, failures);
+        };
+
+        long hedgeDelayMs = getHedgeDelayMs();
+        System.out.println("🎙️ Trying ElevenLabs TTS (Premium Quality), hedging after " + hedgeDelayMs + " ms...");
+        Attempt elevenLabs = new Attempt(PROVIDER_ELEVENLABS, "ElevenLabs", elevenLabsCacheKey(text, languageCode));
+        launchAttempt(elevenLabs, buildElevenLabsRequest(text, languageCode), winner, started, failures);
+        elevenLabs.response.whenComplete((response, error) -> {
+            if (error == null) {
+                recordElevenLabsLatency((System.nanoTime() - elevenLabs.startNanos) / 1_000_000);
+            } else if (elevenLabs.response.isCancelled()) {
+                if (winner.isDone() && !winner.isCompletedExceptionally()) {
+                    // Lost to Google: it would have taken at least this long. Leaving these slow
+                    // requests out would pull the p95, and so the hedge delay, ever lower.
+                    recordElevenLabsLatency((System.nanoTime() - elevenLabs.startNanos) / 1_000_000);
+                }
+            } else if (!winner.isDone()) {
+                // Failed before the hedge fired: fall back right away
+                System.out.println("⚠️ ElevenLabs TTS failed: " + Futures.unwrap(error).getMessage());
+                startGoogle.run();
+            }
+        });
+        ScheduledFuture<?> hedgeTimer = Futures.schedule(startGoogle, hedgeDelayMs);
+
+        winner.whenComplete((attempt, error) -> {
+            hedgeTimer.cancel(false);
+            List<Attempt> racers;
+            synchronized (started) {
+                racers = new ArrayList<>(started);
+            }
+            boolean contested = attempt != null && racers.size() > 1;
+            for (Attempt other : racers) {
+                if (other != attempt) {
+                    // Loser (or everything, if the race was cancelled): stop its request
+                    other.response.cancel(true);
+                    if (contested) {
+                        hedgeLosses.computeIfAbsent(other.provider, k -> new AtomicLong()).incrementAndGet();
+                    }
                 }
-                Files.deleteIfExists(outputFile);
-                throw new IOException(errorMsg);
             }
+            if (contested) {
+                hedgeWins.computeIfAbsent(attempt.provider, k -> new AtomicLong()).incrementAndGet();
+            }
+        });
 
-        } catch (Exception e) {
-            Files.deleteIfExists(outputFile);
-            throw e;
+        return winner.thenCompose(attempt -> {
+            System.out.println("✅ " + attempt.displayName + " TTS answered first!");
+            logger.info("Hedged TTS won by {} after {} ms", attempt.provider,
+                (System.nanoTime() - attempt.startNanos) / 1_000_000);
+            return playResponseAsync(attempt.response.join(), attempt.cacheKey, attempt.displayName, currentStep);
+        }).handle((path, error) -> {
+            if (error != null) {
+                Throwable cause = Futures.unwrap(error);
+                if (!result.isDone()) {
+                    System.out.println("❌ All TTS methods failed!");
+                    logger.error("All TTS methods failed", cause);
+                }
+                throw new CompletionException(new IOException("TTS conversion failed: " + cause.getMessage(), cause));
+            }
+            return path;
+        });
+    }
+
+    /**
+     * Sends one racer's request; a valid (HTTP 200) response claims the win, and once
+     * every racer has failed the race fails.
+     */
+    private void launchAttempt(Attempt attempt, HttpRequest request, CompletableFuture<Attempt> winner,
+                               List<Attempt> started, AtomicInteger failures) {
+        CompletableFuture<HttpResponse<InputStream>> exchange =
+            healthFor(attempt.displayName).sendAsync(httpClient, request, HttpResponse.BodyHandlers.ofInputStream());
+        attempt.response = exchange.thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(streamError(response, attempt.displayName));
+            }
+            return response;
+        });
+        Futures.propagateCancel(attempt.response, exchange);
+        // A cancelled request may still deliver its response; make sure the connection is released
+        exchange.thenAccept(response -> {
+            if (attempt.response.isCancelled()) {
+                closeQuietly(response.body());
+            }
+        });
+        synchronized (started) {
+            started.add(attempt);
+        }
+
+        attempt.response.whenComplete((response, error) -> {
+            if (error == null) {
+                if (!winner.complete(attempt)) {
+                    closeQuietly(response.body()); // lost the race
+                }
+            } else if (!attempt.response.isCancelled()) {
+                logger.warn("{} TTS failed: {}", attempt.displayName, Futures.unwrap(error).getMessage());
+                // ElevenLabs failing starts Google, so the race only ends when both have failed
+                if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(Futures.unwrap(error));
+                }
+            }
+        });
+    }
+
+    private void recordElevenLabsLatency(long latencyMs) {
+        synchronized (elevenLabsLatencies) {
+            elevenLabsLatencies[elevenLabsLatencyCount % HEDGE_LATENCY_WINDOW] = latencyMs;
+            elevenLabsLatencyCount++;
         }
     }
 
+    /**
+     * How long to wait for ElevenLabs before also asking Google: the 95th percentile of
+     * its recent response latency, or TTS_HEDGE_DELAY_MS until enough samples exist. A request
+     * cancelled after losing to Google counts with the time it had run.
+     */
+    private long getHedgeDelayMs() {
+        long[] samples;
+        synchronized (elevenLabsLatencies) {
+            if (elevenLabsLatencyCount < HEDGE_MIN_SAMPLES) {
+                return defaultHedgeDelayMs;
+            }
+            samples = Arrays.copyOf(elevenLabsLatencies, Math.min(elevenLabsLatencyCount, HEDGE_LATENCY_WINDOW));
+        }
+        Arrays.sort(samples);
+        return samples[(int) Math.ceil(samples.length * 0.95) - 1];
+    }
+
+    private static String speechKey(String text, String languageCode) {
+        return languageCode + "|" + text.trim();
+    }
+
+    /**
+     * Counts ElevenLabs and Google TTS calls in the daily per-provider usage stats.
+     */
+    public void setUsageStats(UsageStats usageStats) {
+        elevenLabsHealth.setUsageStats(usageStats);
+        googleHealth.setUsageStats(usageStats);
+    }
+
+    private ProviderHealth healthFor(String providerName) {
+        return "ElevenLabs".equals(providerName) ? elevenLabsHealth : googleHealth;
+    }
+
+    /**
+     * Circuit state, error rate and current timeout for ElevenLabs and Google TTS, plus coalesced requests.
+     */
+    public String getProviderStats() {
+        return elevenLabsHealth.getStats() + "\n" + googleHealth.getStats() + "\n" + syntheses.getStats();
+    }
+
+    /**
+     * Hedged-race counters: how often Google was fired and who won or lost.
+     */
+    public String getHedgeStats() {
+        return String.format("hedges fired: %d, elevenlabs won/lost: %d/%d, google won/lost: %d/%d, hedge delay: %d ms",
+            hedgesFired.get(),
+            hedgeWins.getOrDefault(PROVIDER_ELEVENLABS, new AtomicLong()).get(),
+            hedgeLosses.getOrDefault(PROVIDER_ELEVENLABS, new AtomicLong()).get(),
+            hedgeWins.getOrDefault(PROVIDER_GOOGLE, new AtomicLong()).get(),
+            hedgeLosses.getOrDefault(PROVIDER_GOOGLE, new AtomicLong()).get(),
+            getHedgeDelayMs());
+    }
+
+    /**
+     * ElevenLabs TTS - Premium quality, natural-sounding voices.
+     * Free tier: 10,000 characters/month
+     * Supports multilingual voices perfect for Hindi/Bhojpuri
+     * @param languageCode Language code (not directly used but logged for tracking)
+     */
+    private String useElevenLabsTTS(String text, String languageCode) throws IOException, InterruptedException {
+        String cacheKey = elevenLabsCacheKey(text, languageCode);
+        return fetchAndPlay(buildElevenLabsRequest(text, languageCode), cacheKey, "ElevenLabs");
+    }
+
+    private String elevenLabsCacheKey(String text, String languageCode) {
+        return TTSCache.key(text, languageCode, PROVIDER_ELEVENLABS, DEFAULT_VOICE_ID, ELEVENLABS_MODEL_ID);
+    }
+
+    private HttpRequest buildElevenLabsRequest(String text, String languageCode) {
+        String endpoint = ELEVENLABS_ENDPOINT + DEFAULT_VOICE_ID;
+        
+        // Request body for ElevenLabs
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("text", text);
+        requestBody.put("model_id", ELEVENLABS_MODEL_ID);
+        
+        // Voice settings for natural speech
+        JSONObject voiceSettings = new JSONObject();
+        voiceSettings.put("stability", 0.5);      // 0-1, higher = more stable but less expressive
+        voiceSettings.put("similarity_boost", 0.75); // 0-1, higher = closer to original voice
+        requestBody.put("voice_settings", voiceSettings);
+
+        System.out.println("   ElevenLabs API URL: " + endpoint);
+        System.out.println("   Voice: " + DEFAULT_VOICE_ID + " (Bella - Clear Female, Language: " + languageCode + ")");
+        logger.info("Using ElevenLabs TTS with voice ID: {} for language: {}", DEFAULT_VOICE_ID, languageCode);
+
+        return HttpRequest.newBuilder()
+            .uri(URI.create(endpoint))
+            .header("xi-api-key", ELEVENLABS_API_KEY)
+            .header("Content-Type", "application/json")
+            .header("Accept", "audio/mpeg")
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
+            .timeout(elevenLabsHealth.getTimeout())  // time to first byte, at most 30s
+            .build();
+    }
+
     /**
      * Google TTS fallback - FREE and reliable!
      * Uses Google Translate's text-to-speech API (no key needed).
@@ -240,86 +662,382 @@ public class TTSManager {
      * @return Path to the generated audio file
      */
     private String useGoogleTTS(String text, String languageCode) throws IOException, InterruptedException {
-        Path outputFile = outputDirectory.resolve("tts_output.mp3");
+        return fetchAndPlay(buildGoogleRequest(text, languageCode), googleCacheKey(text, languageCode), "Google");
+    }
 
-        // ⚠️ IMPORTANT: Delete old file first to prevent audio accumulation
-        try {
-            if (Files.exists(outputFile)) {
-                Files.delete(outputFile);
-                System.out.println("   🗑️ Deleted old TTS file to prevent accumulation");
-                logger.info("Deleted old TTS file: {}", outputFile);
-            }
-        } catch (IOException e) {
-            logger.warn("Could not delete old TTS file: {}", e.getMessage());
-        }
+    private String googleCacheKey(String text, String languageCode) {
+        // Map language code to Google TTS supported code
+        String googleLangCode = mapLanguageCodeForGoogleTTS(languageCode);
+        return TTSCache.key(text, googleLangCode, PROVIDER_GOOGLE, GOOGLE_VOICE_ID, GOOGLE_MODEL_ID);
+    }
+
+    private HttpRequest buildGoogleRequest(String text, String languageCode) {
+        String googleLangCode = mapLanguageCodeForGoogleTTS(languageCode);
+        String encodedText = URLEncoder.encode(text, StandardCharsets.UTF_8);
+        String url = "https://translate.google.com/translate_tts?ie=UTF-8&q=" + encodedText + "&tl=" + googleLangCode + "&client=tw-ob";
+        
+        System.out.println("   Google TTS URL: " + url);
+        System.out.println("   Language: " + languageCode + " (mapped to: " + googleLangCode + ")");
+        logger.info("Using Google TTS with language: {} (mapped to: {})", languageCode, googleLangCode);
 
+        return HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
+            .GET()
+            .timeout(googleHealth.getTimeout())
+            .build();
+    }
+
+    /**
+     * Sends a TTS request, plays the returned MP3 and stores it in the cache.
+     * With streaming enabled (TTS_STREAMING, default true) playback starts as soon as the
+     * first frames arrive while the same bytes are written to disk in parallel;
+     * otherwise the whole file is downloaded first.
+     * @return Path to the cached audio file
+     */
+    private String fetchAndPlay(HttpRequest request, String cacheKey, String providerName)
+            throws IOException, InterruptedException {
+        Path downloadFile = ttsCache.tempFileFor(cacheKey);
         try {
-            String encodedText = URLEncoder.encode(text, "UTF-8");
-            // Map language code to Google TTS supported code
-            String googleLangCode = mapLanguageCodeForGoogleTTS(languageCode);
-            String url = "https://translate.google.com/translate_tts?ie=UTF-8&q=" + encodedText + "&tl=" + googleLangCode + "&client=tw-ob";
-            
-            System.out.println("   Google TTS URL: " + url);
-            System.out.println("   Language: " + languageCode + " (mapped to: " + googleLangCode + ")");
-            logger.info("Using Google TTS with language: {} (mapped to: {})", languageCode, googleLangCode);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                .GET()
-                .timeout(java.time.Duration.ofSeconds(30))
-                .build();
-
-            HttpResponse<Path> response = httpClient.send(
-                request, 
-                HttpResponse.BodyHandlers.ofFile(outputFile)
-            );
-
-            if (response.statusCode() == 200 && Files.exists(outputFile) && Files.size(outputFile) > 0) {
-                System.out.println("   File size: " + Files.size(outputFile) + " bytes");
+            if (streamingEnabled) {
+                streamToFileAndPlay(request, downloadFile, providerName);
+            } else {
+                downloadToFile(request, downloadFile, providerName);
+            }
+            Path outputFile = commitDownload(cacheKey, downloadFile, providerName);
+            if (streamingEnabled) {
                 System.out.println("   Saved to: " + outputFile.toAbsolutePath());
-                System.out.println("   Playing audio...");
-                audioPlayer.play(outputFile.toString());
-                System.out.println("   ✅ Playback completed");
-                return outputFile.toAbsolutePath().toString();
             } else {
-                Files.deleteIfExists(outputFile);
-                throw new IOException("Google TTS failed with status: " + response.statusCode());
+                playOutput(outputFile);
             }
+            return outputFile.toAbsolutePath().toString();
+        } finally {
+            Files.deleteIfExists(downloadFile);
+        }
+    }
+
+    private void downloadToFile(HttpRequest request, Path downloadFile, String providerName)
+            throws IOException, InterruptedException {
+        HttpResponse<Path> response = healthFor(providerName).send(httpClient, request,
+            HttpResponse.BodyHandlers.ofFile(downloadFile));
+        if (response.statusCode() != 200) {
+            throw downloadError(response, downloadFile, providerName);
+        }
+    }
+
+    private void streamToFileAndPlay(HttpRequest request, Path downloadFile, String providerName)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = healthFor(providerName).send(httpClient, request,
+            HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            throw streamError(response, providerName);
+        }
 
-        } catch (Exception e) {
-            Files.deleteIfExists(outputFile);
-            throw e;
+        try (InputStream body = response.body();
+             OutputStream file = Files.newOutputStream(downloadFile);
+             TeeInputStream tee = new TeeInputStream(body, file)) {
+            System.out.println("   Streaming audio while downloading...");
+            audioPlayer.playStream(tee);
+            // Keep any trailing bytes the decoder didn't need so the cached file is complete
+            tee.drain();
+            System.out.println("   ✅ Playback completed");
         }
     }
 
     /**
-     * Cleans up old TTS audio files.
+     * Async counterpart of {@link #fetchAndPlay}: the request goes out with {@code sendAsync}
+     * and playback is queued on the audio thread, so no caller thread waits on either.
+     * Every step is published to {@code currentStep} so it can be cancelled.
+     * @return A future completed with the path to the cached audio file
      */
-    public void cleanupOldFiles() {
-        try {
-            long currentTime = System.currentTimeMillis();
-            long oneHourAgo = currentTime - (60 * 60 * 1000);
-
-            Files.list(outputDirectory)
-                .filter(path -> path.toString().endsWith(".mp3"))
-                .filter(path -> {
-                    try {
-                        return Files.getLastModifiedTime(path).toMillis() < oneHourAgo;
-                    } catch (IOException e) {
-                        return false;
+    private CompletableFuture<String> fetchAndPlayAsync(HttpRequest request, String cacheKey, String providerName,
+                                                        AtomicReference<CompletableFuture<?>> currentStep) {
+        if (streamingEnabled) {
+            return track(currentStep, healthFor(providerName).sendAsync(httpClient, request,
+                    HttpResponse.BodyHandlers.ofInputStream()))
+                .thenCompose(response -> playResponseAsync(response, cacheKey, providerName, currentStep));
+        }
+
+        Path downloadFile = ttsCache.tempFileFor(cacheKey);
+        return track(currentStep, healthFor(providerName).sendAsync(httpClient, request,
+                HttpResponse.BodyHandlers.ofFile(downloadFile)))
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    throw new CompletionException(downloadError(response, downloadFile, providerName));
+                }
+                return commitDownloadUnchecked(cacheKey, downloadFile, providerName);
+            })
+            .thenCompose(outputFile -> playCommittedAsync(outputFile, currentStep))
+            .whenComplete((path, error) -> deleteQuietly(downloadFile));
+    }
+
+    /**
+     * Plays a successful streamed response and stores it in the cache. With streaming
+     * disabled the body is first saved on the download thread, then played from disk.
+     * @return A future completed with the path to the cached audio file
+     */
+    private CompletableFuture<String> playResponseAsync(HttpResponse<InputStream> response, String cacheKey,
+                                                        String providerName,
+                                                        AtomicReference<CompletableFuture<?>> currentStep) {
+        Path downloadFile = ttsCache.tempFileFor(cacheKey);
+        CompletableFuture<String> played;
+        if (streamingEnabled) {
+            played = streamAndPlayAsync(response, downloadFile, providerName, currentStep)
+                .thenApply(ignored -> {
+                    Path outputFile = commitDownloadUnchecked(cacheKey, downloadFile, providerName);
+                    System.out.println("   Saved to: " + outputFile.toAbsolutePath());
+                    return outputFile.toAbsolutePath().toString();
+                });
+        } else {
+            played = track(currentStep, CompletableFuture.supplyAsync(() -> {
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(streamError(response, providerName));
                     }
-                })
-                .forEach(path -> {
-                    try {
-                        Files.delete(path);
-                        logger.debug("Deleted old TTS file: {}", path);
+                    try (InputStream body = response.body()) {
+                        Files.copy(body, downloadFile, StandardCopyOption.REPLACE_EXISTING);
                     } catch (IOException e) {
-                        logger.warn("Failed to delete old file: {}", path);
+                        throw new CompletionException(e);
                     }
-                });
+                    return commitDownloadUnchecked(cacheKey, downloadFile, providerName);
+                }, downloadExecutor))
+                .thenCompose(outputFile -> playCommittedAsync(outputFile, currentStep));
+        }
+        return played.whenComplete((path, error) -> deleteQuietly(downloadFile));
+    }
+
+    private CompletableFuture<String> playCommittedAsync(Path outputFile, AtomicReference<CompletableFuture<?>> currentStep) {
+        System.out.println("   Saved to: " + outputFile.toAbsolutePath());
+        System.out.println("   Playing audio...");
+        return track(currentStep, audioPlayer.playAsync(outputFile.toString()))
+            .thenApply(ignored -> {
+                System.out.println("   ✅ Playback completed");
+                return outputFile.toAbsolutePath().toString();
+            });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Could not delete partial TTS download {}: {}", file, e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> streamAndPlayAsync(HttpResponse<InputStream> response, Path downloadFile,
+                                                       String providerName,
+                                                       AtomicReference<CompletableFuture<?>> currentStep) {
+        if (response.statusCode() != 200) {
+            return CompletableFuture.failedFuture(streamError(response, providerName));
+        }
+        InputStream body = response.body();
+        OutputStream file;
+        try {
+            file = Files.newOutputStream(downloadFile);
         } catch (IOException e) {
-            logger.warn("Error during cleanup", e);
+            closeQuietly(body);
+            return CompletableFuture.failedFuture(e);
         }
+        TeeInputStream tee = new TeeInputStream(body, file);
+        System.out.println("   Streaming audio while downloading...");
+        // Cancelling playback (ESC, pipeline timeout) completes its future at once, but the
+        // playback thread may still be reading the tee; only clean up once it has let go
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        CompletableFuture<Void> playback = track(currentStep, audioPlayer.playStreamAsync(tee, () -> released.complete(null)));
+        return playback
+            .handle((ignored, error) -> error)
+            .thenCombine(released, (error, ignored) -> {
+                try {
+                    if (error == null) {
+                        // Keep any trailing bytes the decoder didn't need so the cached file is complete
+                        tee.drain();
+                        System.out.println("   ✅ Playback completed");
+                    }
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                } finally {
+                    closeQuietly(tee);
+                    closeQuietly(file);
+                }
+                if (error != null) {
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                }
+                return null;
+            });
+    }
+
+    /**
+     * Remembers the step a call is on, so cancelling the call can cancel it. A step started
+     * after {@link #cancelSteps} (e.g. playback queued just as the download finished) is
+     * cancelled straight away.
+     */
+    private static <F extends CompletableFuture<?>> F track(AtomicReference<CompletableFuture<?>> currentStep, F step) {
+        CompletableFuture<?> previous;
+        do {
+            previous = currentStep.get();
+            if (previous == STOPPED) {
+                step.cancel(true);
+                return step;
+            }
+        } while (!currentStep.compareAndSet(previous, step));
+        return step;
+    }
+
+    /**
+     * Cancels the current step and every step tracked after it.
+     */
+    private static void cancelSteps(AtomicReference<CompletableFuture<?>> currentStep) {
+        CompletableFuture<?> step = currentStep.getAndSet(STOPPED);
+        if (step != null) {
+            step.cancel(true);
+        }
+    }
+
+    /**
+     * Checks a finished download and moves it into the cache.
+     */
+    private Path commitDownload(String cacheKey, Path downloadFile, String providerName) throws IOException {
+        if (!Files.exists(downloadFile) || Files.size(downloadFile) == 0) {
+            throw new IOException(providerName + " TTS returned no audio");
+        }
+        return ttsCache.commit(cacheKey, downloadFile);
+    }
+
+    private Path commitDownloadUnchecked(String cacheKey, Path downloadFile, String providerName) {
+        try {
+            return commitDownload(cacheKey, downloadFile, providerName);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private IOException downloadError(HttpResponse<Path> response, Path downloadFile, String providerName) {
+        String errorMsg = providerName + " TTS failed with status: " + response.statusCode();
+        try {
+            String errorBody = Files.readString(downloadFile);
+            System.out.println("   Error response: " + errorBody);
+            errorMsg += " - " + errorBody;
+        } catch (Exception ignored) {}
+        return new IOException(errorMsg);
+    }
+
+    private IOException streamError(HttpResponse<InputStream> response, String providerName) {
+        String errorMsg = providerName + " TTS failed with status: " + response.statusCode();
+        try (InputStream body = response.body()) {
+            String errorBody = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            System.out.println("   Error response: " + errorBody);
+            errorMsg += " - " + errorBody;
+        } catch (Exception ignored) {}
+        return new IOException(errorMsg);
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Copies every byte read from the HTTP body into the cache file as it passes through.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                copy.write(buffer, offset, n);
+            }
+            return n;
+        }
+
+        /**
+         * Reads through instead of skipping, so bytes the decoder skips (an ID3 tag, say)
+         * still reach the cache file.
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 1))];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) >= 0) {
+                // copied by read()
+            }
+        }
+    }
+
+    /**
+     * Looks for an already synthesized clip (ElevenLabs preferred, then Google) and plays it.
+     * @return Path to the cached audio file, or null if nothing is cached for this text
+     */
+    private String playFromCache(String text, String languageCode) {
+        Path cached = findCached(text, languageCode);
+        if (cached == null) {
+            return null;
+        }
+        System.out.println("♻️ Playing cached TTS audio (no API call)");
+        try {
+            return playOutput(cached);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cached TTS playback failed, synthesizing again: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Path findCached(String text, String languageCode) {
+        if (isElevenLabsConfigured()) {
+            return ttsCache.lookup(elevenLabsCacheKey(text, languageCode), googleCacheKey(text, languageCode));
+        }
+        return ttsCache.lookup(googleCacheKey(text, languageCode));
+    }
+
+    private static boolean isElevenLabsConfigured() {
+        return !ELEVENLABS_API_KEY.equals("YOUR_ELEVENLABS_API_KEY_HERE");
+    }
+
+    private String playOutput(Path outputFile) throws IOException {
+        System.out.println("   File size: " + Files.size(outputFile) + " bytes");
+        System.out.println("   Saved to: " + outputFile.toAbsolutePath());
+        System.out.println("   Playing audio...");
+        audioPlayer.play(outputFile.toString());
+        System.out.println("   ✅ Playback completed");
+        return outputFile.toAbsolutePath().toString();
+    }
+
+    /**
+     * Returns the TTS audio cache so callers can report hit/miss counters.
+     */
+    public TTSCache getCache() {
+        return ttsCache;
     }
 }
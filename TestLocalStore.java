@@ -0,0 +1,53 @@
+package com.bhojpurri;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checks that the local store's log can be reopened read-only (as exports do) when the
+ * last entry ends within a header's length of the end of the file, where the scan stops
+ * without finding an empty entry.
+ */
+public class TestLocalStore {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("━".repeat(80));
+        System.out.println("💾 LOCAL STORE READ-ONLY REOPEN TEST");
+        System.out.println("━".repeat(80));
+
+        Path directory = Files.createTempDirectory("local_store_test");
+        Path logFile = directory.resolve("translations.log");
+
+        LocalTranslationStore store = new LocalTranslationStore(directory, false);
+        store.save("/tmp/recording.wav", 1024, "Hello", "नमस्ते", "hi", null).get();
+        store.close();
+
+        // Cut the file to one entry plus a few trailing bytes, fewer than a header needs
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            length.flip();
+            channel.truncate(9 + length.getInt() + 4);
+        }
+
+        LocalTranslationStore readOnly = new LocalTranslationStore(directory, true);
+        int count = readOnly.count();
+        readOnly.close();
+        if (count != 1) {
+            throw new AssertionError("Expected 1 translation after reopening read-only, found " + count);
+        }
+        System.out.println("✅ Reopened read-only with " + count + " translation(s)");
+
+        LocalTranslationStore writable = new LocalTranslationStore(directory, false);
+        writable.save("/tmp/recording2.wav", 2048, "Thanks", "धन्यवाद", "hi", null).get();
+        count = writable.count();
+        writable.close();
+        if (count != 2) {
+            throw new AssertionError("Expected 2 translations after appending, found " + count);
+        }
+        System.out.println("✅ Reopened for writing and appended, " + count + " translation(s)");
+    }
+}
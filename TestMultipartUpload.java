@@ -0,0 +1,118 @@
+package com.bhojpurri;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+/**
+ * Allocation benchmark for the Whisper upload body.
+ * Compares the old approach (read the WAV, then concatenate prefix + audio + suffix
+ * into one array) with the streaming MultipartBodyPublisher.
+ * Run with an optional size in MB: TestMultipartUpload 40
+ */
+public class TestMultipartUpload {
+
+    public static void main(String[] args) throws Exception {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int iterations = 5;
+
+        System.out.println("━".repeat(80));
+        System.out.println("📦 MULTIPART UPLOAD BENCHMARK (" + sizeMb + " MB recording)");
+        System.out.println("━".repeat(80));
+
+        File wav = File.createTempFile("bench_recording", ".wav");
+        wav.deleteOnExit();
+        byte[] data = new byte[sizeMb * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        Files.write(wav.toPath(), data);
+        data = null;
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 2; i++) {
+            concatenated(wav);
+            streamed(wav);
+        }
+
+        long concatBytes = 0, streamBytes = 0, concatNanos = 0, streamNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long before = allocatedBytes();
+            long start = System.nanoTime();
+            concatenated(wav);
+            concatNanos += System.nanoTime() - start;
+            concatBytes += allocatedBytes() - before;
+
+            before = allocatedBytes();
+            start = System.nanoTime();
+            streamed(wav);
+            streamNanos += System.nanoTime() - start;
+            streamBytes += allocatedBytes() - before;
+        }
+
+        System.out.printf("Concatenated byte[] : %8.1f MB allocated, %6.1f ms per upload body%n",
+            concatBytes / iterations / 1048576.0, concatNanos / iterations / 1e6);
+        System.out.printf("Streaming publisher : %8.1f MB allocated, %6.1f ms per upload body%n",
+            streamBytes / iterations / 1048576.0, streamNanos / iterations / 1e6);
+        System.out.println("(Streaming allocations are short-lived 16 KB buffers; peak heap stays flat.)");
+        System.out.println("━".repeat(80));
+    }
+
+    /**
+     * The pre-streaming implementation: three full-size arrays per upload.
+     */
+    private static long concatenated(File wav) throws Exception {
+        byte[] audioBytes = Files.readAllBytes(wav.toPath());
+        byte[] prefixBytes = "--boundary\r\nContent-Disposition: form-data; name=\"file\"\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        byte[] suffixBytes = "\r\n--boundary--\r\n".getBytes(StandardCharsets.UTF_8);
+        byte[] fullBody = new byte[prefixBytes.length + audioBytes.length + suffixBytes.length];
+        System.arraycopy(prefixBytes, 0, fullBody, 0, prefixBytes.length);
+        System.arraycopy(audioBytes, 0, fullBody, prefixBytes.length, audioBytes.length);
+        System.arraycopy(suffixBytes, 0, fullBody, prefixBytes.length + audioBytes.length, suffixBytes.length);
+        return drain(HttpRequest.BodyPublishers.ofByteArray(fullBody));
+    }
+
+    private static long streamed(File wav) throws Exception {
+        MultipartBodyPublisher multipart = new MultipartBodyPublisher()
+            .addFile("file", wav.getName(), "audio/wav", wav.toPath())
+            .addField("model", "whisper-large-v3-turbo")
+            .addField("response_format", "json");
+        return drain(multipart.build());
+    }
+
+    /**
+     * Pulls every buffer out of a body publisher, the way HttpClient would.
+     */
+    private static long drain(HttpRequest.BodyPublisher publisher) {
+        long[] total = new long[1];
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            public void onNext(ByteBuffer item) {
+                total[0] += item.remaining();
+            }
+
+            public void onError(Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+
+            public void onComplete() {
+            }
+        });
+        if (publisher.contentLength() >= 0 && total[0] != publisher.contentLength()) {
+            throw new IllegalStateException("Body length mismatch: " + total[0] + " vs " + publisher.contentLength());
+        }
+        return total[0];
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,301 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two-tier cache for translations: an in-memory LRU map backed by one small JSON
+ * file per entry on disk. Keys are the normalized English text plus the target
+ * language code, so repeated phrases skip the OpenL round-trip entirely.
+ *
+ * Limits are configurable through .env / environment variables:
+ * TRANSLATION_CACHE_SIZE (memory entries), TRANSLATION_CACHE_DISK_SIZE (disk entries)
+ * and TRANSLATION_CACHE_TTL_HOURS (0 = never expire).
+ */
+public class TranslationCache {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationCache.class);
+
+    private static final int DEFAULT_MEMORY_ENTRIES = 500;
+    private static final int DEFAULT_DISK_ENTRIES = 5000;
+    private static final long DEFAULT_TTL_HOURS = 24 * 7;
+
+    private final int maxMemoryEntries;
+    private final int maxDiskEntries;
+    private final long ttlMillis;
+    private final Path cacheDirectory;
+    private final LinkedHashMap<String, Entry> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicInteger diskEntryCount = new AtomicInteger();
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    private static class Entry {
+        final String translation;
+        final long createdAt;
+
+        Entry(String translation, long createdAt) {
+            this.translation = translation;
+            this.createdAt = createdAt;
+        }
+    }
+
+    public TranslationCache() {
+        this(Paths.get("translation_cache"),
+            EnvLoader.getInt("TRANSLATION_CACHE_SIZE", DEFAULT_MEMORY_ENTRIES),
+            EnvLoader.getInt("TRANSLATION_CACHE_DISK_SIZE", DEFAULT_DISK_ENTRIES),
+            EnvLoader.getLong("TRANSLATION_CACHE_TTL_HOURS", DEFAULT_TTL_HOURS) * 60 * 60 * 1000);
+    }
+
+    public TranslationCache(Path cacheDirectory, int maxMemoryEntries, int maxDiskEntries, long ttlMillis) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxMemoryEntries = Math.max(1, maxMemoryEntries);
+        this.maxDiskEntries = Math.max(0, maxDiskEntries);
+        this.ttlMillis = ttlMillis;
+        // Access-ordered LinkedHashMap gives us LRU eviction for free
+        this.memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > TranslationCache.this.maxMemoryEntries;
+            }
+        };
+
+        try {
+            if (this.maxDiskEntries > 0 && !Files.exists(cacheDirectory)) {
+                Files.createDirectories(cacheDirectory);
+                System.out.println("📁 Created directory: " + cacheDirectory.toAbsolutePath());
+            }
+            if (this.maxDiskEntries > 0) {
+                diskEntryCount.set(listEntries().size());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to create translation cache directory", e);
+        }
+
+        logger.info("Translation cache ready (memory: {}, disk: {}, TTL: {} ms)",
+            this.maxMemoryEntries, this.maxDiskEntries, ttlMillis);
+    }
+
+    /**
+     * Looks up a cached translation.
+     *
+     * @param englishText The source English text
+     * @param targetLangCode The target language code
+     * @return The cached translation, or null on a miss
+     */
+    public String get(String englishText, String targetLangCode) {
+        String key = key(englishText, targetLangCode);
+        long now = System.currentTimeMillis();
+
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (!isExpired(entry, now)) {
+                    memoryHits.incrementAndGet();
+                    logger.debug("Translation cache memory hit for {}", targetLangCode);
+                    return entry.translation;
+                }
+                memory.remove(key);
+            }
+        }
+
+        Entry entry = readFromDisk(key, now);
+        if (entry != null) {
+            synchronized (memory) {
+                memory.put(key, entry);
+            }
+            diskHits.incrementAndGet();
+            logger.debug("Translation cache disk hit for {}", targetLangCode);
+            return entry.translation;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores a translation in both the memory and disk tiers.
+     */
+    public void put(String englishText, String targetLangCode, String translation) {
+        if (translation == null || translation.isEmpty()) {
+            return;
+        }
+        String key = key(englishText, targetLangCode);
+        Entry entry = new Entry(translation, System.currentTimeMillis());
+
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        writeToDisk(key, englishText, targetLangCode, entry);
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Hit ratio across both tiers, 0.0 if nothing has been looked up yet.
+     */
+    public double getHitRatio() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public String getStats() {
+        return String.format("memory hits: %d, disk hits: %d, misses: %d, hit ratio: %.1f%%",
+            memoryHits.get(), diskHits.get(), misses.get(), getHitRatio() * 100);
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlMillis > 0 && now - entry.createdAt > ttlMillis;
+    }
+
+    private Entry readFromDisk(String key, long now) {
+        if (maxDiskEntries == 0) {
+            return null;
+        }
+        Path file = cacheDirectory.resolve(hash(key) + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            // Guard against hash collisions by comparing the stored key
+            if (!key.equals(json.getString("key"))) {
+                return null;
+            }
+            Entry entry = new Entry(json.getString("translation"), json.getLong("created_at"));
+            if (isExpired(entry, now)) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            // Refresh the modification time so eviction treats the file as recently used
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            } catch (IOException e) {
+                logger.debug("Could not touch translation cache file {}: {}", file, e.getMessage());
+            }
+            return entry;
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable translation cache file {}: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {}
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, String englishText, String targetLangCode, Entry entry) {
+        if (maxDiskEntries == 0) {
+            return;
+        }
+        JSONObject json = new JSONObject();
+        json.put("key", key);
+        json.put("source_text", englishText);
+        json.put("target_lang", targetLangCode);
+        json.put("translation", entry.translation);
+        json.put("created_at", entry.createdAt);
+
+        Path file = cacheDirectory.resolve(hash(key) + ".json");
+        // Unique per write, so concurrent writers of the same key never share a temp file
+        Path tmp = cacheDirectory.resolve(hash(key) + "." + writeSequence.incrementAndGet() + ".tmp");
+        try {
+            boolean isNew = !Files.exists(file);
+            Files.writeString(tmp, json.toString(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Only pay for a directory listing once the tier is actually over its limit
+            if (isNew && diskEntryCount.incrementAndGet() > maxDiskEntries) {
+                evictDiskEntries();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write translation cache file: {}", e.getMessage());
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Removes the least recently used files once the disk tier grows past its limit.
+     */
+    private synchronized void evictDiskEntries() throws IOException {
+        List<Path> files = listEntries();
+        if (files.size() <= maxDiskEntries) {
+            diskEntryCount.set(files.size());
+            return;
+        }
+        files.sort(Comparator.comparingLong(path -> {
+            try {
+                return Files.getLastModifiedTime(path).toMillis();
+            } catch (IOException e) {
+                return 0L;
+            }
+        }));
+        for (int i = 0; i < files.size() - maxDiskEntries; i++) {
+            Files.deleteIfExists(files.get(i));
+            logger.debug("Evicted translation cache file: {}", files.get(i));
+        }
+        diskEntryCount.set(maxDiskEntries);
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (Stream<Path> stream = Files.list(cacheDirectory)) {
+            return stream.filter(path -> path.toString().endsWith(".json")).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Normalizes text so that trivially different inputs share an entry.
+     */
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static String key(String englishText, String targetLangCode) {
+        return targetLangCode + "|" + normalize(englishText);
+    }
+
+    static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
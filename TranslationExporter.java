@@ -0,0 +1,272 @@
+package com.bhojpurri;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports the translations table to gzip-compressed CSV or JSON Lines files.
+ *
+ * Records are streamed from {@link DatabaseManager#scanHistory} straight into the compressed
+ * file, so memory use doesn't depend on how many are exported. A date range is split into
+ * calendar months, one file each, written in parallel by EXPORT_THREADS (default 2) threads;
+ * with MySQL each thread holds one pooled connection, so keep it below DB_POOL_SIZE.
+ *
+ * Usage: TranslationExporter &lt;output-dir&gt; [--format csv|jsonl] [--from YYYY-MM-DD]
+ * [--to YYYY-MM-DD] [--language CODE]...
+ */
+public class TranslationExporter {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationExporter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CSV_HEADER = {
+        "id", "created_at", "target_language", "english_text", "translated_text",
+        "audio_file_path", "audio_file_size", "tts_file_path"
+    };
+
+    public enum Format {
+        CSV("csv"),
+        JSONL("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private final DatabaseManager dbManager;
+    private final Format format;
+    private final int threads;
+
+    public TranslationExporter(DatabaseManager dbManager, Format format) {
+        this.dbManager = dbManager;
+        this.format = format;
+        this.threads = Math.max(1, EnvLoader.getInt("EXPORT_THREADS", 2));
+    }
+
+    /**
+     * Export everything matching the languages into a single file.
+     *
+     * @param directory Where to write translations.csv.gz or translations.jsonl.gz
+     * @param languages Target language codes to include, or empty for all
+     * @return The file written
+     */
+    public Path exportAll(Path directory, Set<String> languages) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("translations." + format.extension + ".gz");
+        export(withLanguages(new HistoryQuery(), languages), file);
+        return file;
+    }
+
+    /**
+     * Export a date range as one file per calendar month, e.g. translations-2025-01.csv.gz,
+     * several months at a time.
+     *
+     * @param from First day to include
+     * @param to Day after the last one to include
+     * @return The files written, oldest first
+     * @throws IOException If any month fails; files already finished are kept
+     */
+    public List<Path> exportRange(Path directory, Set<String> languages, LocalDate from, LocalDate to) throws IOException {
+        Files.createDirectories(directory);
+        ZoneId zone = ZoneId.systemDefault();
+        List<Path> files = new ArrayList<>();
+        List<Future<Path>> months = new ArrayList<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (YearMonth month = YearMonth.from(from); month.atDay(1).isBefore(to); month = month.plusMonths(1)) {
+                LocalDate start = from.isAfter(month.atDay(1)) ? from : month.atDay(1);
+                LocalDate end = to.isBefore(month.plusMonths(1).atDay(1)) ? to : month.plusMonths(1).atDay(1);
+                HistoryQuery query = withLanguages(new HistoryQuery(), languages)
+                    .from(start.atStartOfDay(zone).toInstant())
+                    .to(end.atStartOfDay(zone).toInstant());
+                Path file = directory.resolve("translations-" + month + "." + format.extension + ".gz");
+                months.add(workers.submit(() -> {
+                    export(query, file);
+                    return file;
+                }));
+            }
+            for (Future<Path> month : months) {
+                files.add(month.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            workers.shutdownNow();
+        }
+        return files;
+    }
+
+    private static HistoryQuery withLanguages(HistoryQuery query, Set<String> languages) {
+        for (String language : languages) {
+            query.language(language);
+        }
+        return query;
+    }
+
+    /**
+     * Stream one query's records into a file. It is written under a temporary name and
+     * renamed when complete, so a failed export never leaves a truncated file behind.
+     */
+    private void export(HistoryQuery query, Path file) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long[] count = {0};
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(partial), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            if (format == Format.CSV) {
+                writeCsvRow(out, (Object[]) CSV_HEADER);
+            }
+            dbManager.scanHistory(query, record -> {
+                if (format == Format.CSV) {
+                    writeCsvRow(out, record.getId(), record.getCreatedAt(), record.getTargetLanguage(),
+                        record.getEnglishText(), record.getTranslatedText(), record.getAudioPath(),
+                        record.getAudioSize(), record.getTtsPath());
+                } else {
+                    writeJsonLine(out, record);
+                }
+                count[0]++;
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("📤 Exported {} translation(s) to {} in {} ms", count[0], file,
+            System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * RFC 4180: fields with commas, quotes or line breaks are quoted, quotes doubled, nulls left empty
+     */
+    private static void writeCsvRow(Writer out, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (fields[i] == null) {
+                continue;
+            }
+            String value = fields[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private static void writeJsonLine(Writer out, TranslationRecord record) throws IOException {
+        out.write(new JSONObject()
+            .put("id", record.getId())
+            .put("created_at", record.getCreatedAt() != null ? record.getCreatedAt().toString() : JSONObject.NULL)
+            .put("target_language", record.getTargetLanguage() != null ? record.getTargetLanguage() : JSONObject.NULL)
+            .put("english_text", record.getEnglishText() != null ? record.getEnglishText() : JSONObject.NULL)
+            .put("translated_text", record.getTranslatedText() != null ? record.getTranslatedText() : JSONObject.NULL)
+            .put("audio_file_path", record.getAudioPath() != null ? record.getAudioPath() : JSONObject.NULL)
+            .put("audio_file_size", record.getAudioSize())
+            .put("tts_file_path", record.getTtsPath() != null ? record.getTtsPath() : JSONObject.NULL)
+            .toString());
+        out.write('\n');
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: TranslationExporter <output-dir> [--format csv|jsonl] "
+                + "[--from YYYY-MM-DD] [--to YYYY-MM-DD] [--language CODE]...");
+            System.exit(1);
+        }
+        EnvLoader.load();
+
+        Path directory = Paths.get(args[0]);
+        Format format = Format.CSV;
+        LocalDate from = null;
+        LocalDate to = null;
+        Set<String> languages = new LinkedHashSet<>();
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                System.out.println("❌ Missing value for " + args[i]);
+                System.exit(1);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--format":
+                    format = Format.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "--from":
+                    from = LocalDate.parse(value);
+                    break;
+                case "--to":
+                    to = LocalDate.parse(value);
+                    break;
+                case "--language":
+                    languages.add(value);
+                    break;
+                default:
+                    System.out.println("❌ Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        if (to != null && from == null) {
+            System.out.println("❌ --to needs --from");
+            System.exit(1);
+        }
+
+        // Read-only, so exporting next to the running app doesn't replay its journal
+        DatabaseManager dbManager = DatabaseManager.openReadOnly();
+        int status = 0;
+        try {
+            TranslationExporter exporter = new TranslationExporter(dbManager, format);
+            if (from != null) {
+                List<Path> files = exporter.exportRange(directory, languages, from,
+                    to != null ? to : LocalDate.now().plusDays(1));
+                System.out.println("✅ Exported " + files.size() + " file(s) to " + directory);
+            } else {
+                System.out.println("✅ Exported " + exporter.exportAll(directory, languages));
+            }
+        } catch (IOException e) {
+            logger.error("❌ Export failed", e);
+            status = 1;
+        } finally {
+            dbManager.close();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bhojpurri;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * One row of the translations table.
+ */
+public class TranslationRecord {
+    // Column list matching {@link #fromResultSet}
+    static final String COLUMNS = "id, audio_file_path, audio_file_size, english_text, translated_text, " +
+            "target_language, tts_file_path, created_at";
+
+    private final int id;
+    private final String audioPath;
+    private final long audioSize;
+    private final String englishText;
+    private final String translatedText;
+    private final String targetLanguage;
+    private final String ttsPath;
+    private final Instant createdAt;
+
+    public TranslationRecord(int id, String audioPath, long audioSize, String englishText, String translatedText,
+                             String targetLanguage, String ttsPath, Instant createdAt) {
+        this.id = id;
+        this.audioPath = audioPath;
+        this.audioSize = audioSize;
+        this.englishText = englishText;
+        this.translatedText = translatedText;
+        this.targetLanguage = targetLanguage;
+        this.ttsPath = ttsPath;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Reads the current row of a query that selected {@link #COLUMNS}.
+     */
+    static TranslationRecord fromResultSet(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp("created_at");
+        return new TranslationRecord(
+            rs.getInt("id"),
+            rs.getString("audio_file_path"),
+            rs.getLong("audio_file_size"),
+            rs.getString("english_text"),
+            rs.getString("translated_text"),
+            rs.getString("target_language"),
+            rs.getString("tts_file_path"),
+            created != null ? created.toInstant() : null);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getAudioPath() {
+        return audioPath;
+    }
+
+    public long getAudioSize() {
+        return audioSize;
+    }
+
+    public String getEnglishText() {
+        return englishText;
+    }
+
+    public String getTranslatedText() {
+        return translatedText;
+    }
+
+    public String getTargetLanguage() {
+        return targetLanguage;
+    }
+
+    /**
+     * @return The TTS audio file, or null if none was attached
+     */
+    public String getTtsPath() {
+        return ttsPath;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TranslationRecord{id=" + id + ", language=" + targetLanguage + ", createdAt=" + createdAt
+            + ", english='" + englishText + "', translated='" + translatedText + "'}";
+    }
+}
@@ -0,0 +1,92 @@
+package com.bhojpurri;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where translations are persisted. {@link DatabaseManager} picks an implementation from
+ * STORAGE_BACKEND: "mysql" (default, {@link MySqlTranslationStore}) or "local"
+ * ({@link LocalTranslationStore}, an embedded log file that needs no database server).
+ */
+public interface TranslationStore {
+
+    /**
+     * Receives records from {@link #scan}; throwing stops the scan.
+     */
+    interface Visitor {
+        void visit(TranslationRecord record) throws IOException;
+    }
+
+    /**
+     * Persist a translation record.
+     *
+     * @param ttsPath Path to generated TTS audio file, or null to attach it later with {@link #updateTtsPath}
+     * @return A future completed with the record's ID once it is stored
+     */
+    CompletableFuture<Integer> save(String audioPath, long audioSize, String englishText,
+                                    String translatedText, String targetLanguage, String ttsPath);
+
+    /**
+     * Attach the TTS audio file to a saved translation.
+     *
+     * @return true if the record was updated
+     */
+    boolean updateTtsPath(int id, String ttsPath);
+
+    /**
+     * @return The number of stored translations, or 0 if it can't be read
+     */
+    int count();
+
+    /**
+     * One page of history, newest first, ordered by (created_at, id).
+     *
+     * @param after The last record of the previous page, or null for the first page
+     * @return The next records older than {@code after}; fewer than {@code limit} means the end
+     * @throws IOException If the store can't be read
+     */
+    List<TranslationRecord> getHistory(HistoryQuery query, TranslationRecord after, int limit) throws IOException;
+
+    /**
+     * Visit every matching record, oldest first, without holding more than a few of them
+     * in memory. Meant for bulk reads such as exports.
+     *
+     * @throws IOException If the store can't be read, or the visitor throws
+     */
+    void scan(HistoryQuery query, Visitor visitor) throws IOException;
+
+    /**
+     * Search English and translated text, best matches first.
+     *
+     * @param languages Target language codes to restrict to, or null/empty for all
+     * @return One page of matches; empty if nothing matched or the search failed
+     */
+    SearchResults search(String query, Set<String> languages, int page, int pageSize);
+
+    /**
+     * Print today's totals and breakdown to stdout.
+     */
+    void printTodayStats();
+
+    /**
+     * Usage counters that providers report their calls to.
+     */
+    UsageStats getUsageStats();
+
+    /**
+     * @return true if the store can currently be written to
+     */
+    boolean isAvailable();
+
+    /**
+     * Connection, queue or file usage, for logging
+     */
+    String getStats();
+
+    /**
+     * Write out anything pending and release the store.
+     */
+    void close();
+}
@@ -0,0 +1,569 @@
+package com.bhojpurri;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for translation rows.
+ *
+ * {@link #enqueue} appends the row to a local journal (db_journal/translations.jsonl by
+ * default) and returns at once. A background thread collects queued rows until
+ * DB_BATCH_SIZE (default 100) are waiting or DB_FLUSH_INTERVAL_MS (default 250) has passed
+ * since the first one, then inserts them as one JDBC batch in a single transaction. With
+ * rewriteBatchedStatements the driver sends that as a multi-row INSERT, so a burst of saves
+ * costs one round-trip and one commit instead of one each.
+ *
+ * Rows leave the journal only once their transaction commits. If MySQL is down, the batch
+ * is retried with backoff, and anything still unwritten at shutdown is replayed from the
+ * journal on the next start. A batch that fails for a reason retrying won't fix (a
+ * constraint violation, a value too long for its column) is written again one row at a
+ * time, and the rows that still fail are moved to translations.dead.jsonl next to the
+ * journal, so one bad row can't hold up the rest. Each row carries a request_id with a unique key, so a row that
+ * was committed just before a crash, or whose commit succeeded although the connection dropped before the
+ * acknowledgement arrived, is not inserted twice on replay or retry; it resolves to the stored row's ID.
+ */
+public class TranslationWriter {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationWriter.class);
+
+    private static final String INSERT_COLUMNS = "translations (request_id, audio_file_path, audio_file_size, " +
+            "english_text, translated_text, target_language, tts_file_path, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long MAX_RETRY_DELAY_MS = 30000;
+
+    /**
+     * One translation row waiting to be written.
+     */
+    public static class PendingTranslation {
+        final String requestId;
+        final String audioPath;
+        final long audioSize;
+        final String englishText;
+        final String translatedText;
+        final String targetLanguage;
+        final String ttsPath;
+        final long createdAt;
+        // Read back from the journal or part of a failed attempt, so it may already be in the table
+        volatile boolean maybeCommitted;
+        final CompletableFuture<Integer> id = new CompletableFuture<>();
+
+        public PendingTranslation(String audioPath, long audioSize, String englishText,
+                                  String translatedText, String targetLanguage, String ttsPath) {
+            this(UUID.randomUUID().toString(), audioPath, audioSize, englishText, translatedText,
+                 targetLanguage, ttsPath, System.currentTimeMillis(), false);
+        }
+
+        private PendingTranslation(String requestId, String audioPath, long audioSize, String englishText,
+                                   String translatedText, String targetLanguage, String ttsPath,
+                                   long createdAt, boolean maybeCommitted) {
+            this.requestId = requestId;
+            this.audioPath = audioPath;
+            this.audioSize = audioSize;
+            this.englishText = englishText;
+            this.translatedText = translatedText;
+            this.targetLanguage = targetLanguage;
+            this.ttsPath = ttsPath;
+            this.createdAt = createdAt;
+            this.maybeCommitted = maybeCommitted;
+        }
+
+        String toJson() {
+            return new JSONObject()
+                .put("request_id", requestId)
+                .put("audio_file_path", audioPath)
+                .put("audio_file_size", audioSize)
+                .put("english_text", englishText != null ? englishText : JSONObject.NULL)
+                .put("translated_text", translatedText != null ? translatedText : JSONObject.NULL)
+                .put("target_language", targetLanguage)
+                .put("tts_file_path", ttsPath != null ? ttsPath : JSONObject.NULL)
+                .put("created_at", createdAt)
+                .toString();
+        }
+
+        static PendingTranslation fromJson(String line) {
+            JSONObject json = new JSONObject(line);
+            return new PendingTranslation(
+                json.getString("request_id"),
+                json.getString("audio_file_path"),
+                json.getLong("audio_file_size"),
+                json.isNull("english_text") ? null : json.getString("english_text"),
+                json.isNull("translated_text") ? null : json.getString("translated_text"),
+                json.getString("target_language"),
+                json.isNull("tts_file_path") ? null : json.getString("tts_file_path"),
+                json.getLong("created_at"),
+                true);
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Path journalFile;
+    private final Path deadLetterFile;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long shutdownFlushMs;
+    private final BlockingQueue<PendingTranslation> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Everything journaled but not yet committed, in journal order; guarded by itself
+    private final Set<PendingTranslation> unflushed = new LinkedHashSet<>();
+    private FileChannel journal; // guarded by unflushed
+    private int journaledRows = 0; // rows in the journal file, committed or not; guarded by unflushed
+    // Held for the writer's lifetime so a second process can't replay and compact the same
+    // journal. It is on a separate file because compaction replaces the journal file.
+    private FileChannel lockChannel;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public TranslationWriter(ConnectionPool pool, Path journalDirectory) {
+        this.pool = pool;
+        this.journalFile = journalDirectory.resolve("translations.jsonl");
+        this.deadLetterFile = journalDirectory.resolve("translations.dead.jsonl");
+        this.batchSize = Math.max(1, EnvLoader.getInt("DB_BATCH_SIZE", 100));
+        this.flushIntervalMs = Math.max(1, EnvLoader.getLong("DB_FLUSH_INTERVAL_MS", 250));
+        this.shutdownFlushMs = EnvLoader.getLong("DB_SHUTDOWN_FLUSH_MS", 5000);
+
+        try {
+            Files.createDirectories(journalDirectory);
+            lockChannel = FileChannel.open(journalDirectory.resolve("translations.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = lockChannel.tryLock();
+            if (lock == null) {
+                lockChannel.close();
+                lockChannel = null;
+                throw new IOException(journalFile + " is in use by another process");
+            }
+            replayJournal();
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("⚠️ Could not open database journal {}, queued rows will not survive a crash",
+                journalFile, e);
+        }
+
+        this.writerThread = new Thread(this::run, "db-write-behind");
+        writerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts writing. Call once the schema exists, so replayed rows have a table to go to.
+     */
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Journals a row and queues it for the next batch.
+     *
+     * @return A future completed with the row's ID once its batch has committed
+     */
+    public CompletableFuture<Integer> enqueue(PendingTranslation row) {
+        if (!running) {
+            row.id.completeExceptionally(new SQLException("Database writer is shut down"));
+            return row.id;
+        }
+        synchronized (unflushed) {
+            appendToJournal(row);
+            unflushed.add(row);
+        }
+        queue.add(row);
+        return row.id;
+    }
+
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                journaledRows++;
+                try {
+                    PendingTranslation row = PendingTranslation.fromJson(line);
+                    unflushed.add(row);
+                    queue.add(row);
+                    replayed++;
+                } catch (RuntimeException e) {
+                    // A torn last line from a crash mid-append
+                    logger.warn("Skipping unreadable journal entry: {}", e.getMessage());
+                }
+            }
+        }
+        if (replayed > 0) {
+            logger.info("📒 Replaying {} unwritten translation(s) from {}", replayed, journalFile);
+        }
+    }
+
+    private void appendToJournal(PendingTranslation row) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            ByteBuffer line = ByteBuffer.wrap((row.toJson() + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                journal.write(line);
+            }
+            journal.force(false);
+            journaledRows++;
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to journal translation {}, it is only queued in memory: {}",
+                row.requestId, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops committed rows from the journal: truncates it when nothing is pending, and
+     * otherwise rewrites it with just the rows still waiting once committed rows make up
+     * more than half of it. Until then committed rows stay behind (a replay skips them by
+     * their request_id), so draining a long backlog doesn't rewrite it after every batch.
+     *
+     * @param force Rewrite even if few rows are committed, e.g. to keep dead-lettered rows
+     *              from being replayed and dead-lettered again
+     */
+    private void compactJournal(List<PendingTranslation> committed, boolean force) {
+        synchronized (unflushed) {
+            unflushed.removeAll(committed);
+            if (journal == null) {
+                return;
+            }
+            try {
+                if (unflushed.isEmpty()) {
+                    journal.truncate(0);
+                    journal.force(true);
+                    journaledRows = 0;
+                    return;
+                }
+                if (!force && journaledRows <= 2 * unflushed.size()) {
+                    return;
+                }
+                Path tmp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+                try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    for (PendingTranslation row : unflushed) {
+                        out.write(row.toJson());
+                        out.write('\n');
+                    }
+                }
+                try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    tmpChannel.force(true);
+                }
+                journal.close();
+                Files.move(tmp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                journal = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                journaledRows = unflushed.size();
+            } catch (IOException e) {
+                // Committed rows left in the journal are skipped on replay by their request_id
+                logger.warn("⚠️ Failed to compact database journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void run() {
+        List<PendingTranslation> batch = new ArrayList<>();
+        long retryDelayMs = 1000;
+        try {
+            while (running || !queue.isEmpty() || !batch.isEmpty()) {
+                if (batch.isEmpty()) {
+                    PendingTranslation first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                // Give the batch until the flush interval to fill up
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    PendingTranslation next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                try {
+                    writeBatch(batch);
+                    compactJournal(batch, false);
+                    batch = new ArrayList<>();
+                    retryDelayMs = 1000;
+                    continue;
+                } catch (SQLException e) {
+                    failedAttempts.incrementAndGet();
+                    if (!isTransient(e)) {
+                        logger.warn("⚠️ Database rejected a batch of {} translation(s), writing them one at a time: {}",
+                            batch.size(), e.getMessage());
+                        batch = writeRowByRow(batch);
+                        if (batch.isEmpty()) {
+                            retryDelayMs = 1000;
+                            continue;
+                        }
+                    }
+                    logger.warn("⚠️ Database write failed, keeping {} translation(s) in the journal and retrying in {} ms: {}",
+                        batch.size(), retryDelayMs, e.getMessage());
+                }
+                Thread.sleep(retryDelayMs);
+                retryDelayMs = Math.min(MAX_RETRY_DELAY_MS, retryDelayMs * 2);
+            }
+        } catch (InterruptedException e) {
+            // Shutting down; whatever is left stays in the journal
+        }
+    }
+
+    /**
+     * Writes each row in its own transaction, dead-lettering the ones the database rejects.
+     *
+     * @return The rows left for a retry because a transient failure cut the pass short
+     */
+    private List<PendingTranslation> writeRowByRow(List<PendingTranslation> batch) {
+        List<PendingTranslation> done = new ArrayList<>();
+        boolean rejected = false;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingTranslation row = batch.get(i);
+                try {
+                    writeBatch(Collections.singletonList(row));
+                } catch (SQLException e) {
+                    if (isTransient(e)) {
+                        return new ArrayList<>(batch.subList(i, batch.size()));
+                    }
+                    deadLetter(row, e);
+                    rejected = true;
+                }
+                done.add(row);
+            }
+            return new ArrayList<>();
+        } finally {
+            compactJournal(done, rejected);
+        }
+    }
+
+    /**
+     * Failures worth retrying: the connection or server being unavailable, timeouts,
+     * deadlocks. Anything else is the row's fault and fails the same way every time.
+     */
+    static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause() != null ? t.getCause()
+                : t instanceof SQLException ? ((SQLException) t).getNextException() : null) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                String state = ((SQLException) t).getSQLState();
+                // 08: connection exception; 42S02: table missing because the schema couldn't be created at startup
+                if (state != null && (state.startsWith("08") || state.equals("42S02"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves a row the database won't accept out of the journal into the dead-letter file
+     * and fails its future.
+     */
+    private void deadLetter(PendingTranslation row, SQLException error) {
+        deadLettered.incrementAndGet();
+        String entry = new JSONObject(row.toJson())
+            .put("error", String.valueOf(error.getMessage()))
+            .put("sql_state", error.getSQLState() != null ? error.getSQLState() : JSONObject.NULL)
+            .put("failed_at", System.currentTimeMillis())
+            .toString();
+        try (FileChannel deadLetters = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer line = ByteBuffer.wrap((entry + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                deadLetters.write(line);
+            }
+            deadLetters.force(false);
+            logger.error("☠️ Database rejected translation {}, moved it to {}: {}",
+                row.requestId, deadLetterFile, error.getMessage());
+        } catch (IOException e) {
+            logger.error("☠️ Database rejected translation {} and it could not be saved to {}: {} - row: {}",
+                row.requestId, deadLetterFile, error.getMessage(), entry);
+        }
+        row.id.completeExceptionally(error);
+    }
+
+    /**
+     * Inserts one batch in a single transaction. If the attempt fails, its rows are marked as
+     * possibly committed, because the commit may have reached the server before the error did.
+     */
+    private void writeBatch(List<PendingTranslation> batch) throws SQLException {
+        try {
+            insertBatch(batch);
+        } catch (SQLException | RuntimeException e) {
+            for (PendingTranslation row : batch) {
+                row.maybeCommitted = true;
+            }
+            throw e;
+        }
+    }
+
+    private void insertBatch(List<PendingTranslation> batch) throws SQLException {
+        List<PendingTranslation> fresh = new ArrayList<>();
+        List<PendingTranslation> retried = new ArrayList<>();
+        for (PendingTranslation row : batch) {
+            (row.maybeCommitted ? retried : fresh).add(row);
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        Map<String, Integer> retriedIds = new HashMap<>();
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (!fresh.isEmpty()) {
+                    try (PreparedStatement pstmt = connection.prepareStatement(
+                            "INSERT INTO " + INSERT_COLUMNS, Statement.RETURN_GENERATED_KEYS)) {
+                        addRows(pstmt, fresh);
+                        pstmt.executeBatch();
+                        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                            while (keys.next()) {
+                                ids.add(keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+                if (!retried.isEmpty()) {
+                    // May have been committed already; a duplicate request_id is a no-op, while any
+                    // other error still fails the row so it can be dead-lettered
+                    try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO " + INSERT_COLUMNS +
+                            " ON DUPLICATE KEY UPDATE request_id = request_id")) {
+                        addRows(pstmt, retried);
+                        pstmt.executeBatch();
+                    }
+                    StringBuilder sql = new StringBuilder("SELECT id, request_id FROM translations WHERE request_id IN (");
+                    for (int i = 0; i < retried.size(); i++) {
+                        sql.append(i == 0 ? "?" : ", ?");
+                    }
+                    try (PreparedStatement pstmt = connection.prepareStatement(sql.append(')').toString())) {
+                        for (int i = 0; i < retried.size(); i++) {
+                            pstmt.setString(i + 1, retried.get(i).requestId);
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                retriedIds.put(rs.getString("request_id"), rs.getInt("id"));
+                            }
+                        }
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        batches.incrementAndGet();
+        written.addAndGet(batch.size());
+        logger.info("💾 Wrote {} translation(s) to database in one batch", batch.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            int id = i < ids.size() ? ids.get(i) : -1;
+            logger.debug("💾 Saved translation to database (ID: {}, Language: {})", id, fresh.get(i).targetLanguage);
+            fresh.get(i).id.complete(id);
+        }
+        for (PendingTranslation row : retried) {
+            row.id.complete(retriedIds.getOrDefault(row.requestId, -1));
+        }
+    }
+
+    private static void addRows(PreparedStatement pstmt, List<PendingTranslation> rows) throws SQLException {
+        for (PendingTranslation row : rows) {
+            pstmt.setString(1, row.requestId);
+            pstmt.setString(2, row.audioPath);
+            pstmt.setLong(3, row.audioSize);
+            pstmt.setString(4, row.englishText);
+            pstmt.setString(5, row.translatedText);
+            pstmt.setString(6, row.targetLanguage);
+            pstmt.setString(7, row.ttsPath);
+            pstmt.setTimestamp(8, new Timestamp(row.createdAt));
+            pstmt.addBatch();
+        }
+    }
+
+    /**
+     * Stops accepting rows and flushes the queue for up to DB_SHUTDOWN_FLUSH_MS.
+     * Rows that could not be written stay in the journal for the next start.
+     */
+    public void close() {
+        running = false;
+        try {
+            if (writerThread.isAlive()) {
+                writerThread.join(shutdownFlushMs);
+                if (writerThread.isAlive()) {
+                    writerThread.interrupt();
+                    writerThread.join(1000);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (unflushed) {
+            if (!unflushed.isEmpty()) {
+                logger.warn("📒 {} translation(s) not yet in the database; they stay in {} for the next start",
+                    unflushed.size(), journalFile);
+                for (PendingTranslation row : unflushed) {
+                    row.id.completeExceptionally(new SQLException("Database write deferred to next start"));
+                }
+            }
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close database journal: {}", e.getMessage());
+                }
+            }
+            if (lockChannel != null) {
+                try {
+                    // Closing the channel releases the lock
+                    lockChannel.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to release database journal lock: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    public String getStats() {
+        return String.format("write-behind: %d written in %d batches, %d queued, %d failed attempts, %d dead-lettered",
+            written.get(), batches.get(), queue.size(), failedAttempts.get(), deadLettered.get());
+    }
+}
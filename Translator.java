@@ -6,15 +6,25 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.Files;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -41,6 +51,17 @@ public class Translator {
     private static final String TRANSLATE_ENDPOINT = "https://" + OPENL_HOST + "/translate";
     
     private final HttpClient httpClient;
+    private final TranslationCache translationCache;
+    private final ChunkedTranscriber chunkedTranscriber;
+    private final int translateMaxParallel;
+    private final ProviderHealth groqHealth = new ProviderHealth("Groq", java.time.Duration.ofSeconds(15));
+    private final ProviderHealth openlHealth = new ProviderHealth("OpenL", java.time.Duration.ofSeconds(10));
+    // Per-minute quotas: Groq's free Whisper tier allows 20 requests/min
+    private final RateLimiter groqLimiter = new RateLimiter("Groq", 20);
+    private final RateLimiter openlLimiter = new RateLimiter("OpenL", 60);
+    // Identical requests already in flight are shared instead of sent twice
+    private final SingleFlight<String, String> transcriptionFlights = new SingleFlight<>("transcription");
+    private final SingleFlight<String, String> translationFlights = new SingleFlight<>("translation");
 
     public Translator() {
         // Create HTTP client with relaxed SSL verification to fix SSL handshake errors
@@ -73,6 +94,9 @@ public class Translator {
                 .build();
         }
         this.httpClient = client;
+        this.translationCache = new TranslationCache();
+        this.chunkedTranscriber = new ChunkedTranscriber(this::transcribeSegmentAsync);
+        this.translateMaxParallel = Math.max(1, EnvLoader.getInt("TRANSLATE_MAX_PARALLEL", 4));
     }
 
     /**
@@ -86,12 +110,7 @@ public class Translator {
         logger.info("Transcribing audio file using Groq Whisper: {}", audioFilePath);
         
         // Check if API key is configured
-        if (GROQ_API_KEY.equals("YOUR_GROQ_API_KEY_HERE")) {
-            String errorMsg = "Groq API key not configured! Get your FREE key from https://console.groq.com/";
-            logger.error(errorMsg);
-            System.out.println("\n❌ " + errorMsg);
-            throw new IllegalStateException(errorMsg);
-        }
+        checkGroqApiKey();
         
         File audioFile = new File(audioFilePath);
         if (!audioFile.exists() || audioFile.length() == 0) {
@@ -102,81 +121,59 @@ public class Translator {
         System.out.println("🎤 Transcribing audio with Groq Whisper API...");
         
         try {
-            // Create multipart form data request
-            String boundary = "----WebKitFormBoundary" + System.currentTimeMillis();
-            byte[] audioBytes = Files.readAllBytes(audioFile.toPath());
-            
-            // Build multipart body
-            StringBuilder bodyBuilder = new StringBuilder();
-            
-            // Add file part
-            bodyBuilder.append("--").append(boundary).append("\r\n");
-            bodyBuilder.append("Content-Disposition: form-data; name=\"file\"; filename=\"")
-                      .append(audioFile.getName()).append("\"\r\n");
-            bodyBuilder.append("Content-Type: audio/wav\r\n\r\n");
-            
-            String bodyPrefix = bodyBuilder.toString();
-            
-            bodyBuilder = new StringBuilder();
-            bodyBuilder.append("\r\n");
-            
-            // Add model part
-            bodyBuilder.append("--").append(boundary).append("\r\n");
-            bodyBuilder.append("Content-Disposition: form-data; name=\"model\"\r\n\r\n");
-            bodyBuilder.append(GROQ_MODEL).append("\r\n");
-            
-            // Add response format
-            bodyBuilder.append("--").append(boundary).append("\r\n");
-            bodyBuilder.append("Content-Disposition: form-data; name=\"response_format\"\r\n\r\n");
-            bodyBuilder.append("json").append("\r\n");
-            
-            bodyBuilder.append("--").append(boundary).append("--\r\n");
-            
-            String bodySuffix = bodyBuilder.toString();
-            
-            // Combine all parts
-            byte[] prefixBytes = bodyPrefix.getBytes("UTF-8");
-            byte[] suffixBytes = bodySuffix.getBytes("UTF-8");
-            byte[] fullBody = new byte[prefixBytes.length + audioBytes.length + suffixBytes.length];
-            
-            System.arraycopy(prefixBytes, 0, fullBody, 0, prefixBytes.length);
-            System.arraycopy(audioBytes, 0, fullBody, prefixBytes.length, audioBytes.length);
-            System.arraycopy(suffixBytes, 0, fullBody, prefixBytes.length + audioBytes.length, suffixBytes.length);
+            double work = whisperWork(audioFile);
+            // Stream the file from disk while uploading instead of loading it into memory
+            MultipartBodyPublisher multipart = new MultipartBodyPublisher()
+                .addFile("file", audioFile.getName(), "audio/wav", audioFile.toPath())
+                .addField("model", GROQ_MODEL)
+                .addField("response_format", "json");
             
             // Create HTTP request
             HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(GROQ_WHISPER_ENDPOINT))
                 .header("Authorization", "Bearer " + GROQ_API_KEY)
-                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-                .POST(HttpRequest.BodyPublishers.ofByteArray(fullBody))
-                .timeout(java.time.Duration.ofSeconds(15))  // Reduced from 60s to 15s
+                .header("Content-Type", multipart.getContentType())
+                .POST(multipart.build())
+                .timeout(groqHealth.getTimeout(work))  // Adapts to Groq latency and clip length, at most 15s
                 .build();
             
-            logger.debug("Sending transcription request to Groq Whisper API");
+            return sendTranscriptionRequest(request, work);
             
-            // Send request
-            HttpResponse<String> response = httpClient.send(
-                request,
-                HttpResponse.BodyHandlers.ofString()
-            );
-            
-            logger.debug("Received response with status code: {}", response.statusCode());
-            
-            if (response.statusCode() == 200) {
-                JSONObject jsonResponse = new JSONObject(response.body());
-                String transcribedText = jsonResponse.getString("text");
-                
-                logger.info("Transcription successful: {}", transcribedText);
-                System.out.println("✅ Transcribed: " + transcribedText);
-                
-                return transcribedText;
-                
-            } else {
-                String errorMsg = "Groq Whisper API error (status " + response.statusCode() + "): " + response.body();
-                logger.error(errorMsg);
-                System.out.println("❌ " + errorMsg);
-                throw new IOException(errorMsg);
-            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Transcription interrupted: " + e.getMessage(), e);
+        } catch (Exception e) {
+            logger.error("Error transcribing audio with Groq", e);
+            throw new IOException("Transcription failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Transcribes an in-memory recording to English text using Groq's FREE Whisper API.
+     * The PCM chunks are uploaded directly - no WAV file is read back from disk and
+     * the audio is never copied into a single request array. Long recordings are
+     * split at pauses and transcribed in parallel by {@link ChunkedTranscriber}.
+     * 
+     * @param audio The recording captured by {@link SpeechRecorder#stopRecordingToMemory()}
+     * @return Transcribed English text
+     * @throws IOException If transcription fails
+     */
+    public String transcribeToEnglish(RecordedAudio audio) throws IOException {
+        logger.info("Transcribing in-memory recording using Groq Whisper ({} bytes)", audio.getWavLength());
+        checkGroqApiKey();
+        
+        if (audio.getPcmLength() == 0) {
+            throw new IOException("Audio recording is empty");
+        }
+        
+        try {
+            return transcriptionFlights.call(audio.contentHash(), () -> {
+                if (chunkedTranscriber.shouldChunk(audio)) {
+                    return chunkedTranscriber.transcribe(audio);
+                }
+                System.out.println("🎤 Transcribing audio with Groq Whisper API...");
+                return sendTranscriptionRequest(buildTranscriptionRequest(audio), whisperWork(audio));
+            });
             
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -187,6 +184,149 @@ public class Translator {
         }
     }
 
+    /**
+     * Non-blocking variant of {@link #transcribeToEnglish(RecordedAudio)} built on
+     * {@code sendAsync}, so no thread waits while Whisper works. Identical audio that is
+     * already being transcribed shares that upload. Cancelling the returned future cancels
+     * the upload(s) behind it once no other caller is waiting for them.
+     * 
+     * @param audio The recording captured by {@link SpeechRecorder#stopRecordingToMemory()}
+     * @return A future completed with the transcribed English text
+     */
+    public CompletableFuture<String> transcribeToEnglishAsync(RecordedAudio audio) {
+        logger.info("Transcribing in-memory recording asynchronously ({} bytes)", audio.getWavLength());
+        try {
+            checkGroqApiKey();
+        } catch (IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (audio.getPcmLength() == 0) {
+            return CompletableFuture.failedFuture(new IOException("Audio recording is empty"));
+        }
+        
+        return transcriptionFlights.execute(audio.contentHash(), () -> {
+            if (chunkedTranscriber.shouldChunk(audio)) {
+                return chunkedTranscriber.transcribeAsync(audio);
+            }
+            
+            System.out.println("🎤 Transcribing audio with Groq Whisper API...");
+            CompletableFuture<String> upload = transcribeSegmentAsync(audio);
+            CompletableFuture<String> result = upload.thenApply(text -> {
+                System.out.println("✅ Transcribed: " + text);
+                return text;
+            });
+            Futures.propagateCancel(result, upload);
+            return result;
+        });
+    }
+
+    /**
+     * Uploads one segment of a long recording without blocking the caller.
+     * Used by {@link ChunkedTranscriber} so all segments share this client's connections.
+     */
+    CompletableFuture<String> transcribeSegmentAsync(RecordedAudio segment) {
+        CompletableFuture<HttpResponse<String>> exchange =
+            groqLimiter.sendAsync(groqHealth, httpClient, buildTranscriptionRequest(segment),
+                HttpResponse.BodyHandlers.ofString(), whisperWork(segment));
+        CompletableFuture<String> text = exchange.thenApply(response -> {
+            try {
+                return parseTranscriptionResponse(response);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        Futures.propagateCancel(text, exchange);
+        return text;
+    }
+
+    /**
+     * Builds the Whisper request for an in-memory recording.
+     * WAV header + PCM chunks are streamed as-is, never copied into one array.
+     */
+    private HttpRequest buildTranscriptionRequest(RecordedAudio audio) {
+        MultipartBodyPublisher multipart = new MultipartBodyPublisher()
+            .addChunks("file", audio.getArchiveFile().getName(), "audio/wav", audio.wavParts())
+            .addField("model", GROQ_MODEL)
+            .addField("response_format", "json");
+        
+        return HttpRequest.newBuilder()
+            .uri(URI.create(GROQ_WHISPER_ENDPOINT))
+            .header("Authorization", "Bearer " + GROQ_API_KEY)
+            .header("Content-Type", multipart.getContentType())
+            .POST(multipart.build())
+            .timeout(groqHealth.getTimeout(whisperWork(audio)))
+            .build();
+    }
+
+    /**
+     * Seconds of audio in an upload. Whisper's latency grows with it, so Groq latencies
+     * and timeouts are kept per second of audio rather than mixing short and long clips.
+     * Clips under a second count as one, since the round trip dominates them.
+     */
+    private static double whisperWork(RecordedAudio audio) {
+        return Math.max(1, audio.getDurationSeconds());
+    }
+
+    private static double whisperWork(File audioFile) {
+        try {
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(audioFile);
+            return Math.max(1, fileFormat.getFrameLength() / fileFormat.getFormat().getFrameRate());
+        } catch (UnsupportedAudioFileException | IOException e) {
+            logger.debug("Could not read the length of {}: {}", audioFile, e.getMessage());
+            return 1;
+        }
+    }
+
+    private void checkGroqApiKey() {
+        if (GROQ_API_KEY.equals("YOUR_GROQ_API_KEY_HERE")) {
+            String errorMsg = "Groq API key not configured! Get your FREE key from https://console.groq.com/";
+            logger.error(errorMsg);
+            System.out.println("\n❌ " + errorMsg);
+            throw new IllegalStateException(errorMsg);
+        }
+    }
+
+    /**
+     * Sends a prepared Whisper request and extracts the transcribed text.
+     */
+    private String sendTranscriptionRequest(HttpRequest request, double work) throws IOException, InterruptedException {
+        logger.debug("Sending transcription request to Groq Whisper API");
+        
+        // Send request
+        HttpResponse<String> response = groqLimiter.send(
+            groqHealth,
+            httpClient,
+            request,
+            HttpResponse.BodyHandlers.ofString(),
+            work
+        );
+        
+        String transcribedText = parseTranscriptionResponse(response);
+        System.out.println("✅ Transcribed: " + transcribedText);
+        return transcribedText;
+    }
+
+    /**
+     * Extracts the transcribed text from a Whisper response.
+     */
+    private String parseTranscriptionResponse(HttpResponse<String> response) throws IOException {
+        logger.debug("Received response with status code: {}", response.statusCode());
+        
+        if (response.statusCode() == 200) {
+            JSONObject jsonResponse = new JSONObject(response.body());
+            String transcribedText = jsonResponse.getString("text");
+            
+            logger.info("Transcription successful: {}", transcribedText);
+            return transcribedText;
+            
+        } else {
+            String errorMsg = "Groq Whisper API error (status " + response.statusCode() + "): " + response.body();
+            logger.error(errorMsg);
+            System.out.println("❌ " + errorMsg);
+            throw new IOException(errorMsg);
+        }
+    }
+
     /**
      * Translates English text to Bhojpuri using OpenL Translate API.
      * 
@@ -214,74 +354,246 @@ public class Translator {
             return "";
         }
 
+        String cached = translationCache.get(englishText, targetLangCode);
+        if (cached != null) {
+            logger.info("Translation served from cache ({}): {}", targetLangCode, cached);
+            return cached;
+        }
+
         logger.info("Translating to {}: {}", targetLangCode, englishText);
 
-        try {
-            // Prepare request body
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("source_lang", "en");
-            requestBody.put("target_lang", targetLangCode);
-            requestBody.put("text", englishText);
+        return translationFlights.call(TranslationCache.key(englishText, targetLangCode), () -> {
+            try {
+                HttpRequest request = buildTranslationRequest(englishText, targetLangCode);
 
-            // Build HTTP request
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(TRANSLATE_ENDPOINT))
-                .header("Content-Type", "application/json")
-                .header("x-rapidapi-key", OPENL_API_KEY)
-                .header("x-rapidapi-host", OPENL_HOST)
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
-                .timeout(java.time.Duration.ofSeconds(10))  // Reduced from 30s to 10s
-                .build();
+                logger.debug("Sending translation request to OpenL API");
 
-            logger.debug("Sending translation request to OpenL API");
+                // Send request
+                HttpResponse<String> response = openlLimiter.send(
+                    openlHealth,
+                    httpClient,
+                    request,
+                    HttpResponse.BodyHandlers.ofString()
+                );
 
-            // Send request
-            HttpResponse<String> response = httpClient.send(
-                request, 
-                HttpResponse.BodyHandlers.ofString()
-            );
+                return parseTranslationResponse(response, englishText, targetLangCode);
 
-            logger.debug("Received response with status code: {}", response.statusCode());
+            } catch (Exception e) {
+                logger.error("Translation failed", e);
+                throw new RuntimeException("Translation error: " + e.getMessage(), e);
+            }
+        });
+    }
 
-            // Handle response
-            if (response.statusCode() == 200) {
-                JSONObject jsonResponse = new JSONObject(response.body());
-                
-                // Parse translation from response
-                // Expected format: {"translations": [{"text": "translated text"}]}
-                if (jsonResponse.has("translatedText")) {
-                    String translation = jsonResponse.getString("translatedText");
-                    logger.info("Translation successful: {}", translation);
-                    return translation;
-                } else if (jsonResponse.has("translations")) {
-                    JSONArray translations = jsonResponse.getJSONArray("translations");
-                    if (translations.length() > 0) {
-                        String translation = translations.getJSONObject(0).getString("text");
-                        logger.info("Translation successful: {}", translation);
-                        return translation;
+    /**
+     * Non-blocking variant of {@link #translateTo(String, String)} built on {@code sendAsync}.
+     * Cache hits complete immediately; cancelling the returned future cancels the request.
+     * 
+     * @param englishText The English text to translate
+     * @param targetLangCode The target language code (e.g., "bho", "hi", "es", "fr")
+     * @return A future completed with the translated text
+     */
+    public CompletableFuture<String> translateToAsync(String englishText, String targetLangCode) {
+        if (englishText == null || englishText.trim().isEmpty()) {
+            logger.warn("Empty text provided for translation");
+            return CompletableFuture.completedFuture("");
+        }
+
+        String cached = translationCache.get(englishText, targetLangCode);
+        if (cached != null) {
+            logger.info("Translation served from cache ({}): {}", targetLangCode, cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        logger.info("Translating to {} asynchronously: {}", targetLangCode, englishText);
+        return sendTranslationAsync(englishText, targetLangCode);
+    }
+
+    /**
+     * Translates English text into several languages at once. Requests are sent
+     * concurrently with {@code sendAsync}, at most TRANSLATE_MAX_PARALLEL (default 4)
+     * in flight, so the wall time is roughly the slowest single call. Cached languages
+     * complete immediately.
+     * 
+     * @param englishText The English text to translate
+     * @param targetLangCodes The target language codes, e.g. "hi", "bho", "ur"
+     * @return One future per language, in the set's iteration order; each completes
+     *         as soon as its own translation arrives, so callers can render progressively;
+     *         cancelling one cancels (or never sends) its request
+     */
+    public Map<String, CompletableFuture<String>> translateToMany(String englishText, Set<String> targetLangCodes) {
+        Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+        Queue<Supplier<CompletableFuture<String>>> pending = new ConcurrentLinkedQueue<>();
+
+        for (String langCode : targetLangCodes) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            results.put(langCode, result);
+
+            if (englishText == null || englishText.trim().isEmpty()) {
+                result.complete("");
+                continue;
+            }
+            String cached = translationCache.get(englishText, langCode);
+            if (cached != null) {
+                logger.info("Translation served from cache ({}): {}", langCode, cached);
+                result.complete(cached);
+                continue;
+            }
+
+            pending.add(() -> {
+                if (result.isDone()) {
+                    return null; // Cancelled while it waited for a free lane
+                }
+                CompletableFuture<String> send = sendTranslationAsync(englishText, langCode);
+                send.whenComplete((translation, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                        logger.error("Translation to {} failed: {}", langCode, cause.getMessage());
+                        result.completeExceptionally(cause);
+                    } else {
+                        result.complete(translation);
                     }
-                } else if (jsonResponse.has("data")) {
-                    // Alternative response format
-                    String translation = jsonResponse.getJSONObject("data").getString("translatedText");
-                    logger.info("Translation successful: {}", translation);
-                    return translation;
+                });
+                Futures.propagateCancel(result, send);
+                return send;
+            });
+        }
+
+        logger.info("Translating to {} languages ({} requests, {} in parallel)",
+            results.size(), pending.size(), Math.min(translateMaxParallel, pending.size()));
+        // Each finished request starts the next queued one, so the in-flight count stays bounded.
+        // Lanes follow the requests themselves, not the results, which complete early when cancelled
+        int lanes = Math.min(translateMaxParallel, pending.size());
+        for (int i = 0; i < lanes; i++) {
+            startNextTranslation(pending);
+        }
+        return results;
+    }
+
+    private void startNextTranslation(Queue<Supplier<CompletableFuture<String>>> pending) {
+        Supplier<CompletableFuture<String>> next;
+        while ((next = pending.poll()) != null) {
+            CompletableFuture<String> send = next.get();
+            if (send != null) {
+                send.whenComplete((translation, error) -> startNextTranslation(pending));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends one translation request without blocking and caches the result. If the same
+     * text is already being translated into the same language, that request is shared.
+     */
+    private CompletableFuture<String> sendTranslationAsync(String englishText, String targetLangCode) {
+        return translationFlights.execute(TranslationCache.key(englishText, targetLangCode),
+            () -> sendTranslationRequestAsync(englishText, targetLangCode));
+    }
+
+    private CompletableFuture<String> sendTranslationRequestAsync(String englishText, String targetLangCode) {
+        CompletableFuture<HttpResponse<String>> exchange;
+        try {
+            exchange = openlLimiter.sendAsync(openlHealth, httpClient, buildTranslationRequest(englishText, targetLangCode),
+                HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<String> translation = exchange.thenApply(response -> {
+            try {
+                return parseTranslationResponse(response, englishText, targetLangCode);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        Futures.propagateCancel(translation, exchange);
+        return translation;
+    }
+
+    private HttpRequest buildTranslationRequest(String englishText, String targetLangCode) {
+        // Prepare request body
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("source_lang", "en");
+        requestBody.put("target_lang", targetLangCode);
+        requestBody.put("text", englishText);
+
+        // Build HTTP request
+        return HttpRequest.newBuilder()
+            .uri(URI.create(TRANSLATE_ENDPOINT))
+            .header("Content-Type", "application/json")
+            .header("x-rapidapi-key", OPENL_API_KEY)
+            .header("x-rapidapi-host", OPENL_HOST)
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
+            .timeout(openlHealth.getTimeout())  // Adapts to OpenL latency, at most 10s
+            .build();
+    }
+
+    /**
+     * Extracts the translation from an OpenL response and stores it in the cache.
+     */
+    private String parseTranslationResponse(HttpResponse<String> response, String englishText,
+                                            String targetLangCode) throws IOException {
+        logger.debug("Received response with status code: {}", response.statusCode());
+
+        // Handle response
+        if (response.statusCode() == 200) {
+            JSONObject jsonResponse = new JSONObject(response.body());
+            
+            // Parse translation from response
+            // Expected format: {"translations": [{"text": "translated text"}]}
+            String translation = null;
+            if (jsonResponse.has("translatedText")) {
+                translation = jsonResponse.getString("translatedText");
+            } else if (jsonResponse.has("translations")) {
+                JSONArray translations = jsonResponse.getJSONArray("translations");
+                if (translations.length() > 0) {
+                    translation = translations.getJSONObject(0).getString("text");
                 }
-                
-                logger.error("Unexpected response format: {}", response.body());
-                throw new IOException("Unexpected API response format");
-                
-            } else {
-                String errorMessage = "API returned error code: " + response.statusCode();
-                logger.error("{}, Response: {}", errorMessage, response.body());
-                throw new IOException(errorMessage + " - " + response.body());
+            } else if (jsonResponse.has("data")) {
+                // Alternative response format
+                translation = jsonResponse.getJSONObject("data").getString("translatedText");
             }
 
-        } catch (Exception e) {
-            logger.error("Translation failed", e);
-            throw new RuntimeException("Translation error: " + e.getMessage(), e);
+            if (translation != null) {
+                logger.info("Translation successful ({}): {}", targetLangCode, translation);
+                translationCache.put(englishText, targetLangCode, translation);
+                return translation;
+            }
+            
+            logger.error("Unexpected response format: {}", response.body());
+            throw new IOException("Unexpected API response format");
+            
+        } else {
+            String errorMessage = "API returned error code: " + response.statusCode();
+            logger.error("{}, Response: {}", errorMessage, response.body());
+            throw new IOException(errorMessage + " - " + response.body());
         }
     }
 
+    /**
+     * Counts Groq and OpenL calls in the daily per-provider usage stats.
+     */
+    public void setUsageStats(UsageStats usageStats) {
+        groqHealth.setUsageStats(usageStats);
+        openlHealth.setUsageStats(usageStats);
+    }
+
+    /**
+     * Returns the translation cache so callers can report hit/miss counters.
+     */
+    public TranslationCache getTranslationCache() {
+        return translationCache;
+    }
+
+    /**
+     * Circuit state, timeout and rate limiter counters for Groq and OpenL, plus coalesced requests.
+     */
+    public String getProviderStats() {
+        return groqHealth.getStats() + "\n" + groqLimiter.getStats() + "\n"
+            + openlHealth.getStats() + "\n" + openlLimiter.getStats() + "\n"
+            + transcriptionFlights.getStats() + ", " + translationFlights.getStats();
+    }
+
     /**
      * Test method to verify API connectivity.
      * @return true if API is accessible, false otherwise
@@ -0,0 +1,276 @@
+package com.bhojpurri;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Usage counters kept in memory and written to MySQL periodically, instead of an upsert on
+ * the single usage_stats row for today after every translation.
+ *
+ * Recording a translation or a provider call only bumps {@link LongAdder}s, which stay cheap
+ * under contention. Every USAGE_STATS_FLUSH_MS (default 60000), and at shutdown, the counts
+ * added since the last flush go out in one transaction: one upsert of the daily totals in
+ * usage_stats, plus one row per language and per provider in usage_stats_detail. If a flush
+ * fails, its counts are carried over to the next one.
+ */
+public class UsageStats {
+    private static final Logger logger = LoggerFactory.getLogger(UsageStats.class);
+
+    public static final String DIMENSION_TOTAL = "total";
+    public static final String DIMENSION_LANGUAGE = "language";
+    public static final String DIMENSION_PROVIDER = "provider";
+
+    /**
+     * One row of counters: a day plus a dimension value, e.g. (today, language, "bho").
+     */
+    private static class Key {
+        final LocalDate date;
+        final String dimension;
+        final String name;
+
+        Key(LocalDate date, String dimension, String name) {
+            this.date = date;
+            this.dimension = dimension;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return date.equals(key.date) && dimension.equals(key.dimension) && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, dimension, name);
+        }
+    }
+
+    /**
+     * Live counts plus what has already been written, so nothing added during a flush is lost.
+     * The flushed fields are only touched by the flushing thread.
+     */
+    private static class Counters {
+        final LongAdder requests = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder audioBytes = new LongAdder();
+        long flushedRequests = 0;
+        long flushedFailures = 0;
+        long flushedAudioBytes = 0;
+        boolean idle = false; // a past day's row found fully flushed by the previous flush
+    }
+
+    /**
+     * The unflushed part of one row's counters.
+     */
+    private static class Delta {
+        final Key key;
+        final Counters counters;
+        final long requests;
+        final long failures;
+        final long audioBytes;
+
+        Delta(Key key, Counters counters) {
+            this.key = key;
+            this.counters = counters;
+            this.requests = counters.requests.sum() - counters.flushedRequests;
+            this.failures = counters.failures.sum() - counters.flushedFailures;
+            this.audioBytes = counters.audioBytes.sum() - counters.flushedAudioBytes;
+        }
+
+        boolean isEmpty() {
+            return requests == 0 && failures == 0 && audioBytes == 0;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Map<Key, Counters> counters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final long flushIntervalMs;
+
+    /**
+     * @param pool Where to write the counts, or null to only count in memory
+     */
+    public UsageStats(ConnectionPool pool) {
+        this.pool = pool;
+        this.flushIntervalMs = Math.max(1000, EnvLoader.getLong("USAGE_STATS_FLUSH_MS", 60000));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "usage-stats-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the periodic flush.
+     */
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts one saved utterance towards today's totals and its language.
+     */
+    public void recordTranslation(String targetLanguage, long audioBytes) {
+        LocalDate today = today();
+        add(new Key(today, DIMENSION_TOTAL, ""), false, audioBytes);
+        add(new Key(today, DIMENSION_LANGUAGE, targetLanguage != null ? targetLanguage : "unknown"), false, audioBytes);
+    }
+
+    /**
+     * Counts one call to an external API, e.g. "Groq" or "ElevenLabs".
+     */
+    public void recordProviderCall(String provider, boolean failed) {
+        add(new Key(today(), DIMENSION_PROVIDER, provider), failed, 0);
+    }
+
+    /**
+     * The day counts are filed under, in the JVM's time zone. Readers of usage_stats bind
+     * this date rather than using CURDATE(), which follows the server's zone.
+     */
+    public static LocalDate today() {
+        return LocalDate.now();
+    }
+
+    private void add(Key key, boolean failed, long audioBytes) {
+        Counters row = counters.computeIfAbsent(key, k -> new Counters());
+        row.requests.increment();
+        if (failed) {
+            row.failures.increment();
+        }
+        if (audioBytes > 0) {
+            row.audioBytes.add(audioBytes);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            logger.warn("⚠️ Failed to write usage stats, will retry with the next flush: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error writing usage stats", e);
+        }
+    }
+
+    /**
+     * Writes everything counted since the last flush in one transaction.
+     */
+    public synchronized void flush() throws SQLException {
+        if (pool == null) {
+            return;
+        }
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<Key, Counters> entry : counters.entrySet()) {
+            Delta delta = new Delta(entry.getKey(), entry.getValue());
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            write(deltas);
+            for (Delta delta : deltas) {
+                delta.counters.flushedRequests += delta.requests;
+                delta.counters.flushedFailures += delta.failures;
+                delta.counters.flushedAudioBytes += delta.audioBytes;
+            }
+            logger.debug("📈 Flushed {} usage counter row(s)", deltas.size());
+        }
+
+        // Past days are dropped once they have stayed flushed for a whole cycle, so a count
+        // that started just before midnight has long since landed
+        LocalDate today = today();
+        for (Map.Entry<Key, Counters> entry : counters.entrySet()) {
+            Key key = entry.getKey();
+            Counters row = entry.getValue();
+            if (!key.date.isBefore(today)) {
+                continue;
+            }
+            if (!new Delta(key, row).isEmpty()) {
+                row.idle = false;
+            } else if (!row.idle) {
+                row.idle = true;
+            } else if (counters.remove(key, row)) {
+                // Anything added after the check above is carried over rather than lost
+                Delta late = new Delta(key, row);
+                if (!late.isEmpty()) {
+                    Counters current = counters.computeIfAbsent(key, k -> new Counters());
+                    current.requests.add(late.requests);
+                    current.failures.add(late.failures);
+                    current.audioBytes.add(late.audioBytes);
+                }
+            }
+        }
+    }
+
+    private void write(List<Delta> deltas) throws SQLException {
+        String totalsSql = "INSERT INTO usage_stats (date, total_recordings, total_translations, total_audio_size) " +
+                    "VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "total_recordings = total_recordings + VALUES(total_recordings), " +
+                    "total_translations = total_translations + VALUES(total_translations), " +
+                    "total_audio_size = total_audio_size + VALUES(total_audio_size)";
+        String detailSql = "INSERT INTO usage_stats_detail (date, dimension, name, requests, failures, audio_size) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "requests = requests + VALUES(requests), " +
+                    "failures = failures + VALUES(failures), " +
+                    "audio_size = audio_size + VALUES(audio_size)";
+
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement totals = connection.prepareStatement(totalsSql);
+                 PreparedStatement detail = connection.prepareStatement(detailSql)) {
+                for (Delta delta : deltas) {
+                    java.sql.Date date = java.sql.Date.valueOf(delta.key.date);
+                    if (DIMENSION_TOTAL.equals(delta.key.dimension)) {
+                        totals.setDate(1, date);
+                        totals.setLong(2, delta.requests);
+                        totals.setLong(3, delta.requests);
+                        totals.setLong(4, delta.audioBytes);
+                        totals.addBatch();
+                    } else {
+                        detail.setDate(1, date);
+                        detail.setString(2, delta.key.dimension);
+                        detail.setString(3, delta.key.name);
+                        detail.setLong(4, delta.requests);
+                        detail.setLong(5, delta.failures);
+                        detail.setLong(6, delta.audioBytes);
+                        detail.addBatch();
+                    }
+                }
+                totals.executeBatch();
+                detail.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes the remaining counts.
+     */
+    public void close() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+}
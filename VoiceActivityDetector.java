@@ -0,0 +1,148 @@
+package com.bhojpurri;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Lightweight energy / zero-crossing voice activity detector for 16-bit mono PCM.
+ * Audio is analysed in 20 ms frames against an adaptive noise floor. Voiced speech
+ * is caught by energy, unvoiced sounds (s, f, sh) by a high zero-crossing rate at
+ * lower energy. A short onset hangover keeps clicks and key noise from counting.
+ *
+ * Feed samples with {@link #accept(byte[], int, int)} or {@link #acceptSample(short)}
+ * and query the state; not thread-safe.
+ */
+public class VoiceActivityDetector {
+    public static final int FRAME_MS = 20;
+
+    private static final double MIN_SPEECH_RMS = 300;       // ~ -41 dBFS
+    private static final double MIN_NOISE_FLOOR = 50;
+    private static final double ENERGY_FACTOR = 3.0;        // voiced speech vs. noise floor
+    private static final double FRICATIVE_ENERGY_FACTOR = 2.0;
+    private static final double FRICATIVE_ZCR = 0.25;       // crossings per sample
+    private static final int ONSET_FRAMES = 3;              // 60 ms of speech before we believe it
+
+    private final int frameSamples;
+
+    // Current frame accumulators
+    private double sumSquares = 0;
+    private int zeroCrossings = 0;
+    private int samplesInFrame = 0;
+    private short previousSample = 0;
+
+    // Detector state
+    private double noiseFloor = -1;
+    private int consecutiveSpeechFrames = 0;
+    private boolean speaking = false;
+    private long frameIndex = 0;
+    private long firstSpeechFrame = -1;
+    private long lastSpeechFrame = -1;
+
+    public VoiceActivityDetector(AudioFormat format) {
+        this.frameSamples = Math.max(1, (int) (format.getSampleRate() * FRAME_MS / 1000));
+    }
+
+    /**
+     * Feeds 16-bit little-endian PCM bytes.
+     */
+    public void accept(byte[] data, int offset, int length) {
+        int end = offset + length - 1;
+        for (int i = offset; i < end; i += 2) {
+            acceptSample((short) ((data[i] & 0xFF) | (data[i + 1] << 8)));
+        }
+    }
+
+    public void acceptSample(short sample) {
+        sumSquares += (double) sample * sample;
+        if ((sample >= 0) != (previousSample >= 0)) {
+            zeroCrossings++;
+        }
+        previousSample = sample;
+        if (++samplesInFrame == frameSamples) {
+            endFrame();
+        }
+    }
+
+    private void endFrame() {
+        double rms = Math.sqrt(sumSquares / samplesInFrame);
+        double zcr = zeroCrossings / (double) samplesInFrame;
+        sumSquares = 0;
+        zeroCrossings = 0;
+        samplesInFrame = 0;
+
+        if (noiseFloor < 0) {
+            noiseFloor = Math.max(MIN_NOISE_FLOOR, rms);
+        }
+
+        boolean speechFrame = rms > Math.max(MIN_SPEECH_RMS, noiseFloor * ENERGY_FACTOR)
+            || (rms > Math.max(MIN_SPEECH_RMS / 2, noiseFloor * FRICATIVE_ENERGY_FACTOR) && zcr > FRICATIVE_ZCR);
+
+        if (speechFrame) {
+            consecutiveSpeechFrames++;
+            if (consecutiveSpeechFrames >= ONSET_FRAMES) {
+                if (!speaking && firstSpeechFrame < 0) {
+                    firstSpeechFrame = frameIndex - ONSET_FRAMES + 1;
+                }
+                speaking = true;
+            }
+            if (speaking) {
+                lastSpeechFrame = frameIndex;
+            }
+        } else {
+            consecutiveSpeechFrames = 0;
+            speaking = false;
+            // Only learn the noise floor from non-speech frames
+            noiseFloor = Math.max(MIN_NOISE_FLOOR, noiseFloor * 0.95 + rms * 0.05);
+        }
+        frameIndex++;
+    }
+
+    /**
+     * @return true once speech has been detected at any point
+     */
+    public boolean hasSpeech() {
+        return firstSpeechFrame >= 0;
+    }
+
+    /**
+     * @return true if the most recent frames are speech
+     */
+    public boolean isSpeaking() {
+        return speaking;
+    }
+
+    /**
+     * Milliseconds of non-speech since the last speech frame, or 0 if no speech yet.
+     */
+    public long getTrailingSilenceMs() {
+        if (!hasSpeech()) {
+            return 0;
+        }
+        return (frameIndex - 1 - lastSpeechFrame) * FRAME_MS;
+    }
+
+    public long getFirstSpeechFrame() {
+        return firstSpeechFrame;
+    }
+
+    public long getLastSpeechFrame() {
+        return lastSpeechFrame;
+    }
+
+    public int getFrameSamples() {
+        return frameSamples;
+    }
+
+    /**
+     * Clears speech state but keeps the learned noise floor.
+     */
+    public void reset() {
+        sumSquares = 0;
+        zeroCrossings = 0;
+        samplesInFrame = 0;
+        consecutiveSpeechFrames = 0;
+        speaking = false;
+        frameIndex = 0;
+        firstSpeechFrame = -1;
+        lastSpeechFrame = -1;
+    }
+}